@@ -0,0 +1,42 @@
+package ritmath.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Runs the benchmarks with the GC profiler on and saves the results as
+ * JSON in bench-results/, one file per run named by the time it started,
+ * so that runs against different versions of the library can be compared
+ * (for example with jmh.morethan.io). Any JMH command line options may be
+ * given, such as a regular expression choosing the benchmarks or
+ * -p size=256 to fix a parameter; they override the defaults here.
+ *
+ * @author Key'Mon Jenkins
+ */
+public class BenchmarkMain {
+
+    /** where result files go, relative to the working directory */
+    public static final String RESULTS = "bench-results";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new File(RESULTS).mkdirs();
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULTS + File.separator + stamp + ".json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,78 @@
+package ritmath.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ritmath.MathFunction;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time and allocation of derivative(). A function remembers its
+ * derivative once built, and FunctionFactory hands out the same node for
+ * equal functions, so the cold benchmarks build a tree with constants
+ * never used before ahead of every call; memoized asks the same tree
+ * again. Run with the GC profiler (BenchmarkMain does) to see bytes
+ * allocated per derivative
+ *
+ * @author Key'Mon Jenkins
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DerivativeBenchmark {
+
+    @Param({"SUM_OF_PRODUCTS", "PRODUCT_OF_SUMS", "BALANCED", "SUM_HEAVY", "PRODUCT_HEAVY", "TRIG_HEAVY"})
+    public String shape;
+
+    @Param({"16", "256", "4096"})
+    public int size;
+
+    @Param({"8", "32"})
+    public int depth;
+
+    /** shared by every trial in the JVM, so no two trees are alike */
+    private static final AtomicLong SEEDS = new AtomicLong(1);
+
+    private MathFunction fresh;
+    private MathFunction warm;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        warm = Workloads.build(shape, size, depth, 0);
+        warm.derivative();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        fresh = Workloads.build(shape, size, depth, SEEDS.incrementAndGet());
+    }
+
+    @Benchmark
+    public MathFunction cold() {
+        return fresh.derivative();
+    }
+
+    @Benchmark
+    public MathFunction memoized() {
+        return warm.derivative();
+    }
+
+    @Benchmark
+    public MathFunction coldSecond() {
+        return fresh.derivative().derivative();
+    }
+}
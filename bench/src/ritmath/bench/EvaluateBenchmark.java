@@ -0,0 +1,91 @@
+package ritmath.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ritmath.MathFunction;
+import ritmath.compile.FunctionCompiler;
+import ritmath.tape.Tape;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of evaluating a function at many points: one evaluate(double)
+ * call per point on the tree, the batch form on the tree, the Tape and
+ * the compiled class. Scores are points per microsecond
+ *
+ * @author Key'Mon Jenkins
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluateBenchmark {
+
+    private static final int POINTS = 1024;
+
+    @Param({"SUM_OF_PRODUCTS", "PRODUCT_OF_SUMS", "BALANCED", "SUM_HEAVY", "PRODUCT_HEAVY", "TRIG_HEAVY"})
+    public String shape;
+
+    @Param({"16", "256", "4096"})
+    public int size;
+
+    @Param({"8", "32"})
+    public int depth;
+
+    private MathFunction tree;
+    private MathFunction tape;
+    private MathFunction compiled;
+    private double[] xs;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        tree = Workloads.build(shape, size, depth, 1);
+        tape = Tape.of(tree);
+        compiled = FunctionCompiler.compile(tree);
+        xs = Workloads.grid(POINTS, -10, 10);
+        out = new double[POINTS];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void scalar(Blackhole bh) {
+        for (double x : xs) {
+            bh.consume(tree.evaluate(x));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] batch() {
+        tree.evaluate(xs, out);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] tape() {
+        tape.evaluate(xs, out);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] compiled() {
+        compiled.evaluate(xs, out);
+        return out;
+    }
+}
@@ -0,0 +1,66 @@
+package ritmath.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ritmath.IntegralResult;
+import ritmath.MathFunction;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of integral(lower, upper, accuracy) at several accuracies, which
+ * covers the sequential and the parallel sum of trapezoids, and of the
+ * adaptive integral(lower, upper, absTol, relTol) at a matching range of
+ * tolerances
+ *
+ * @author Key'Mon Jenkins
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntegralBenchmark {
+
+    @Param({"SUM_OF_PRODUCTS", "BALANCED", "TRIG_HEAVY"})
+    public String shape;
+
+    @Param({"16", "256"})
+    public int size;
+
+    @Param({"16"})
+    public int depth;
+
+    @Param({"100", "10000", "1000000"})
+    public int accuracy;
+
+    private MathFunction tree;
+    private double tolerance;
+
+    @Setup
+    public void setup() {
+        tree = Workloads.build(shape, size, depth, 1);
+        // 100 trapezoids are good to about 1e-4 on these, 1e6 to about 1e-12
+        tolerance = 1.0 / accuracy / accuracy;
+    }
+
+    @Benchmark
+    public double trapezoids() {
+        return tree.integral(-10, 10, accuracy);
+    }
+
+    @Benchmark
+    public IntegralResult adaptive() {
+        return tree.integral(-10, 10, tolerance, tolerance);
+    }
+}
@@ -0,0 +1,73 @@
+package ritmath.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ritmath.MathFunction;
+import ritmath.UniformSampler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluating at equally spaced points: the batch evaluate method on a
+ * precomputed grid against UniformSampler, which replaces Math.sin and
+ * Math.cos of affine arguments by a rotation recurrence. Scores are
+ * points per microsecond
+ *
+ * @author Key'Mon Jenkins
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SamplingBenchmark {
+
+    private static final int POINTS = 1 << 16;
+    private static final double LOWER = -10;
+    private static final double UPPER = 10;
+
+    @Param({"SUM_OF_PRODUCTS", "PRODUCT_OF_SUMS", "TRIG_HEAVY"})
+    public String shape;
+
+    @Param({"16", "256"})
+    public int size;
+
+    @Param({"8"})
+    public int depth;
+
+    private MathFunction tree;
+    private double[] xs;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        tree = Workloads.build(shape, size, depth, 1);
+        xs = Workloads.grid(POINTS, LOWER, UPPER);
+        out = new double[POINTS];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] direct() {
+        tree.evaluate(xs, out);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] recurrence() {
+        UniformSampler.sampleUniform(tree, LOWER, UPPER, POINTS, out);
+        return out;
+    }
+}
@@ -0,0 +1,62 @@
+package ritmath.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ritmath.MathFunction;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of writing a function as text: toString, and
+ * writeTo into a StringBuilder that is reused so only the writing itself
+ * is measured
+ *
+ * @author Key'Mon Jenkins
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToStringBenchmark {
+
+    @Param({"SUM_OF_PRODUCTS", "PRODUCT_OF_SUMS", "BALANCED", "TRIG_HEAVY"})
+    public String shape;
+
+    @Param({"16", "256", "4096"})
+    public int size;
+
+    @Param({"32"})
+    public int depth;
+
+    private MathFunction tree;
+    private final StringBuilder text = new StringBuilder();
+
+    @Setup
+    public void setup() {
+        tree = Workloads.build(shape, size, depth, 1);
+    }
+
+    @Benchmark
+    public String toText() {
+        return tree.toString();
+    }
+
+    @Benchmark
+    public StringBuilder writeTo() throws IOException {
+        text.setLength(0);
+        tree.writeTo(text);
+        return text;
+    }
+}
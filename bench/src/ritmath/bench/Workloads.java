@@ -0,0 +1,144 @@
+package ritmath.bench;
+
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The function trees the benchmarks run on. A workload is named by a
+ * shape and sized by a node budget and a depth limit; the same name,
+ * size, depth and seed always build the same tree, so results from
+ * different versions of the library can be compared.
+ * <ul>
+ *     <li>SUM_OF_PRODUCTS and PRODUCT_OF_SUMS repeat the expressions of
+ *     Part2BigExprTests.t1SumCombo and t2ProductCombo, with different
+ *     constants in each copy, until the node budget is used up</li>
+ *     <li>BALANCED, SUM_HEAVY, PRODUCT_HEAVY and TRIG_HEAVY are random
+ *     trees in which sums, products and sines or cosines are chosen in
+ *     the proportions their names suggest</li>
+ * </ul>
+ * Every workload goes through FunctionFactory, so it is simplified and
+ * interned the way users' functions are.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class Workloads {
+
+    /** the shapes a workload can have, for use in @Param */
+    public static final String[] SHAPES = {
+            "SUM_OF_PRODUCTS", "PRODUCT_OF_SUMS", "BALANCED", "SUM_HEAVY", "PRODUCT_HEAVY", "TRIG_HEAVY"
+    };
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    private Workloads() {
+    }
+
+    /**
+     * Build a workload
+     * @param shape one of SHAPES
+     * @param size roughly how many nodes the tree should have; a random
+     *             tree may have fewer, if depth or simplification by
+     *             FunctionFactory keeps it smaller
+     * @param depth the most nodes on a path from the root to a leaf, for
+     *              the random shapes; the Part2BigExprTests shapes ignore it
+     * @param seed chooses the constants, and the structure of the random
+     *             shapes
+     * @return the function
+     */
+    public static MathFunction build(String shape, int size, int depth, long seed) {
+        Random random = new Random(seed);
+        switch (shape) {
+            case "SUM_OF_PRODUCTS":
+                return repeat(random, size, true);
+            case "PRODUCT_OF_SUMS":
+                return repeat(random, size, false);
+            case "BALANCED":
+                return randomTree(random, size, depth, 1, 1, 1);
+            case "SUM_HEAVY":
+                return randomTree(random, size, depth, 4, 1, 1);
+            case "PRODUCT_HEAVY":
+                return randomTree(random, size, depth, 1, 4, 1);
+            case "TRIG_HEAVY":
+                return randomTree(random, size, depth, 1, 1, 4);
+            default:
+                throw new IllegalArgumentException("unknown shape " + shape);
+        }
+    }
+
+    /**
+     * Copies of the Part2BigExprTests combinations joined by a sum. Each
+     * copy is ( x * 10.0 * cos( x ) ) + ( x * 3840.0 * sin( x ) ) + 331.0
+     * or ( x + 10.0 + cos( x ) ) * ( x + 30.0 + sin( x ) ) * 42.0, about
+     * a dozen nodes, with its constants scaled by a random factor
+     */
+    private static MathFunction repeat(Random random, int size, boolean sumOfProducts) {
+        List<MathFunction> copies = new ArrayList<>();
+        do {
+            double k = 0.5 + random.nextDouble();
+            MathFunction copy;
+            if (sumOfProducts) {
+                copy = FunctionFactory.sum(
+                        FunctionFactory.product(X, c(10 * k), FunctionFactory.cosine(X)),
+                        FunctionFactory.product(X, c(3840 * k), FunctionFactory.sine(X)),
+                        c(331 * k));
+            } else {
+                copy = FunctionFactory.product(
+                        FunctionFactory.sum(X, c(10 * k), FunctionFactory.cosine(X)),
+                        FunctionFactory.sum(X, c(30 * k), FunctionFactory.sine(X)),
+                        c(42 * k));
+            }
+            copies.add(copy);
+        } while (copies.size() * 12 < size);
+        return FunctionFactory.sum(copies.toArray(new MathFunction[0]));
+    }
+
+    /**
+     * A random tree. Interior nodes are sums, products or trig calls with
+     * the given relative weights; sums and products have 2 to 4 children
+     * and share out what is left of the node budget among them. Leaves
+     * are x or a constant between -1 and 1
+     */
+    private static MathFunction randomTree(Random random, int size, int depth,
+                                           int sums, int products, int trig) {
+        if (size <= 1 || depth <= 1) {
+            return random.nextBoolean() ? X : c(random.nextDouble() * 2 - 1);
+        }
+        int pick = random.nextInt(sums + products + trig);
+        if (pick >= sums + products) {
+            MathFunction arg = randomTree(random, size - 1, depth - 1, sums, products, trig);
+            return random.nextBoolean() ? FunctionFactory.sine(arg) : FunctionFactory.cosine(arg);
+        }
+        int n = Math.min(size - 1, 2 + random.nextInt(3));
+        MathFunction[] children = new MathFunction[n];
+        int left = size - 1;
+        for (int i = 0; i < n; i++) {
+            int share = left / (n - i);
+            children[i] = randomTree(random, share, depth - 1, sums, products, trig);
+            left -= share;
+        }
+        return pick < sums ? FunctionFactory.sum(children) : FunctionFactory.product(children);
+    }
+
+    private static MathFunction c(double value) {
+        return FunctionFactory.constant(value);
+    }
+
+    /**
+     * Evenly spaced points to evaluate at
+     * @param n how many
+     * @param lower the first point
+     * @param upper the last point
+     * @return the points
+     */
+    public static double[] grid(int n, double lower, double upper) {
+        double[] xs = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = lower + (upper - lower) * i / (n - 1);
+        }
+        return xs;
+    }
+}
@@ -1,8 +1,11 @@
 package ritmath;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 /**
  * A set of implementations for methods defined in MathFunction
@@ -11,8 +14,31 @@ import java.util.Iterator;
  */
 public abstract class AbstractFunction implements MathFunction, Iterable<MathFunction> {
 
+    /**
+     * How many points the batch evaluate methods of Sum and Product push
+     * through their children at a time. Each such node keeps one scratch
+     * array of this size while evaluating a batch.
+     */
+    protected static final int BLOCK_SIZE = 1024;
+
+    /**
+     * From this many sections on, the sum-of-trapezoids integral is
+     * computed in parallel
+     */
+    protected static final int PARALLEL_THRESHOLD = 1 << 20;
+
     protected MathFunction[] terms;
 
+    /**
+     * the structural information about this function, computed from the
+     * children's the first time it is needed (FunctionFactory needs it as
+     * soon as it builds a node); null means not yet
+     */
+    private NodeInfo info;
+
+    /** the derivative of this function, once it has been built */
+    private volatile MathFunction derivative;
+
     /**
      * Create the MathFunction node in the function tree
      *
@@ -27,12 +53,22 @@ public abstract class AbstractFunction implements MathFunction, Iterable<MathFun
      * Providing this function means that methods in the
      * subclass can write a simpler for loop
      *
-     * @return the internal private child collection's iterator
+     * @return a read-only iterator over the children, in order
      */
     @Override
     public Iterator<MathFunction> iterator() {
-//        for(term : terms){
-        return null;
+        return new ChildIterator(terms);
+    }
+
+    /**
+     * Get a spliterator for the child terms of this function, so
+     * they can be streamed (in parallel, if wanted) without copying
+     *
+     * @return a sized, ordered, immutable spliterator over the children
+     */
+    @Override
+    public Spliterator<MathFunction> spliterator() {
+        return Arrays.spliterator(terms);
     }
 
     /**
@@ -43,6 +79,7 @@ public abstract class AbstractFunction implements MathFunction, Iterable<MathFun
      */
     protected void setChildren(MathFunction[] children) {
         terms = children;
+        info = null;
     }
 
     /**
@@ -51,7 +88,7 @@ public abstract class AbstractFunction implements MathFunction, Iterable<MathFun
      * @return the size of the child collection set by the call
      * to AbstractFunction(MathFunction...) or setChildren(MathFunction[])
      */
-    protected int numChildren() {
+    public int numChildren() {
         return terms.length;
     }
 
@@ -62,9 +99,8 @@ public abstract class AbstractFunction implements MathFunction, Iterable<MathFun
      * @return child #c from the list of children provided in the constructor
      * @rit.pre c is at least 0 and less than the number of children
      */
-    protected MathFunction get(int c) {
-        ArrayList<MathFunction> tempTerms = new ArrayList<>(Arrays.asList(terms));
-        return tempTerms.get(c);
+    public MathFunction get(int c) {
+        return terms[c];
     }
 
     /**
@@ -74,28 +110,165 @@ public abstract class AbstractFunction implements MathFunction, Iterable<MathFun
      */
     @Override
     public boolean isConstant() {
-        for (MathFunction term : terms) {
-            if (!term.isConstant()) {
-                return false;
-            }
+        return info().isConstant();
+    }
+
+    /**
+     * Facts about the structure of this function. They are worked out
+     * once, from the children's, and kept; since NodeInfo is immutable,
+     * two threads that both work them out get equal answers
+     *
+     * @return the structural information about this function
+     */
+    @Override
+    public NodeInfo info() {
+        NodeInfo i = info;
+        if (i == null) {
+            i = computeInfo();
+            info = i;
+        }
+        return i;
+    }
+
+    /**
+     * Work out the structural information about this node from its
+     * children's. Nodes without children override this
+     *
+     * @return the structural information about this function
+     */
+    protected NodeInfo computeInfo() {
+        return NodeInfo.combine(terms, structuralHash(), ownCost());
+    }
+
+    /**
+     * The cost of this node's own work when it is evaluated, not counting
+     * its children's: by default one add or multiply per child
+     *
+     * @return the estimated cost, in units of one add or multiply
+     */
+    protected long ownCost() {
+        return Math.max(1, terms.length);
+    }
+
+    /**
+     * A hash of the kind of node and its children, consistent with equals
+     *
+     * @return the structural hash of this function
+     */
+    protected final int structuralHash() {
+        return 31 * getClass().getName().hashCode() + Arrays.hashCode(terms);
+    }
+
+    /**
+     * Create a new function that is the derivative of this one. The
+     * derivative is built the first time it is asked for and the same
+     * object is returned after that; since a function never changes once
+     * built there is no need to build it again. If two threads ask at once
+     * both may build it, but they build equal (interned) functions
+     *
+     * @return df(x)/dx
+     */
+    @Override
+    public MathFunction derivative() {
+        MathFunction d = derivative;
+        if (d == null) {
+            d = computeDerivative();
+            derivative = d;
         }
-        return true;
+        return d;
     }
 
+    /**
+     * Build the function that is the derivative of this one. Called by
+     * derivative() the first time the derivative is needed
+     *
+     * @return df(x)/dx
+     */
+    protected abstract MathFunction computeDerivative();
+
+    /**
+     * Record an already known derivative of this function, so that
+     * derivative() will not build it again
+     *
+     * @param d the derivative of this function
+     */
+    protected void rememberDerivative(MathFunction d) {
+        if (derivative == null) {
+            derivative = d;
+        }
+    }
+
+    /**
+     * Two functions are equal if they are the same kind of node and have
+     * equal children in the same order. The cached hash codes are compared
+     * first, so unequal functions are usually told apart without walking
+     * down into their children
+     *
+     * @param other the object to compare with
+     * @return true iff other has the same structure as this function
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || other.getClass() != getClass() || other.hashCode() != hashCode()) {
+            return false;
+        }
+        return Arrays.equals(terms, ((AbstractFunction) other).terms);
+    }
+
+    /**
+     * A hash code that depends only on the structure of the function,
+     * consistent with equals. It is part of the node's info, so it is
+     * computed once
+     *
+     * @return the structural hash of this function
+     */
+    @Override
+    public int hashCode() {
+        return info().getHash();
+    }
+
+    /**
+     * Write the function as human-readable text with no new-line
+     * characters, in one pass over the function. (This forces subclasses
+     * to implement writeTo, which toString is built on)
+     *
+     * @param out where the text goes
+     * @throws IOException if out does
+     */
+    @Override
+    public abstract void writeTo(Appendable out) throws IOException;
+
     /**
      * Display the function as a human-readable string with no new-line
-     * characters. (This forces subclasses to implement toString)
+     * characters
      *
      * @return the textual representation of this function
      */
     @Override
-    public abstract String toString();
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        try {
+            writeTo(text);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return text.toString();
+    }
 
     /**
      * Compute the integral of this function over its independent
      * variable and the given range using the sum-of-trapezoids
      * technique. Subclasses should override this method if a
-     * closed-form solution is available
+     * closed-form solution is available.
+     * With PARALLEL_THRESHOLD or more sections the work is split over the
+     * ForkJoinPool the caller runs in, or else the common one. The
+     * sections are added up in a different order than below, so the last
+     * bits of the result can differ, but it does not depend on the number
+     * of threads
      *
      * @param lower    the starting point of the integral's interval
      * @param upper    the ending point of the integral's interval
@@ -105,6 +278,9 @@ public abstract class AbstractFunction implements MathFunction, Iterable<MathFun
      * @return the integral result as a double
      */
     public double integral(double lower, double upper, int accuracy) {
+        if (accuracy >= PARALLEL_THRESHOLD) {
+            return ParallelTrapezoid.integrate(this, lower, upper, accuracy);
+        }
         double intergCount = 0;
         double increment = (upper - lower) / accuracy;
         for (int i = 1; i < accuracy; i ++) {
@@ -115,5 +291,30 @@ public abstract class AbstractFunction implements MathFunction, Iterable<MathFun
         intergCount += evaluate(lower);
         return (increment / 2) * intergCount;
     }
-}
 
+    /**
+     * Walks the children of a node without copying them. remove is
+     * not supported, so a tree cannot be changed through it
+     */
+    private static final class ChildIterator implements Iterator<MathFunction> {
+        private final MathFunction[] children;
+        private int next;
+
+        ChildIterator(MathFunction[] children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < children.length;
+        }
+
+        @Override
+        public MathFunction next() {
+            if (next >= children.length) {
+                throw new NoSuchElementException();
+            }
+            return children[next++];
+        }
+    }
+}
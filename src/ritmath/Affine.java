@@ -0,0 +1,65 @@
+package ritmath;
+
+/**
+ * Recognizes functions that are affine in x, that is equal to
+ * slope * x + intercept for some constants, by looking at how they
+ * are built from Constant, Variable, Sum and Product
+ *
+ * @author Key'Mon Jenkins
+ */
+class Affine {
+    /** the coefficient of x */
+    final double slope;
+
+    /** the value at x = 0 */
+    final double intercept;
+
+    private Affine(double slope, double intercept) {
+        this.slope = slope;
+        this.intercept = intercept;
+    }
+
+    /**
+     * Find the slope and intercept of a function
+     * @param f the function to examine
+     * @return f as slope * x + intercept, or null if f is not
+     * recognizably affine
+     */
+    static Affine of(MathFunction f) {
+        if (f instanceof Variable) {
+            return new Affine(1, 0);
+        }
+        if (f.isConstant()) {
+            return new Affine(0, f.evaluate(0));
+        }
+        if (f instanceof Sum) {
+            double slope = 0;
+            double intercept = 0;
+            Sum sum = (Sum) f;
+            for (int i = 0; i < sum.numChildren(); i++) {
+                Affine a = of(sum.get(i));
+                if (a == null) {
+                    return null;
+                }
+                slope += a.slope;
+                intercept += a.intercept;
+            }
+            return new Affine(slope, intercept);
+        }
+        if (f instanceof Product) {
+            double slope = 0;
+            double intercept = 1;
+            Product product = (Product) f;
+            for (int i = 0; i < product.numChildren(); i++) {
+                Affine a = of(product.get(i));
+                if (a == null || (a.slope != 0 && slope != 0)) {
+                    return null;
+                }
+                slope = slope * a.intercept + intercept * a.slope;
+                intercept *= a.intercept;
+            }
+            return new Affine(slope, intercept);
+        }
+        return null;
+    }
+}
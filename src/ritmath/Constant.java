@@ -1,5 +1,8 @@
 package ritmath;
 
+import java.io.IOException;
+import java.util.Arrays;
+
 /**
  * A function that always returns the same value
  *
@@ -28,11 +31,20 @@ public class Constant extends AbstractFunction{
     }
 
     /**
-     * Create a new function that is the derivative of this one
+     * The structural information about a constant
+     * @return a constant leaf with the hash of the value
+     */
+    @Override
+    protected NodeInfo computeInfo(){
+        return NodeInfo.leaf(true, hashCode(), 1);
+    }
+
+    /**
+     * Build the function that is the derivative of this one
      * @return 0
      */
-    public MathFunction derivative(){
-        return new Constant(0);
+    protected MathFunction computeDerivative(){
+        return FunctionFactory.constant(0);
     }
 
     /**
@@ -44,6 +56,48 @@ public class Constant extends AbstractFunction{
         return constantValue;
     }
 
+    /**
+     * Compute the value of this function at a run of points. Every
+     * result is the value of this constant
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param out where the results go
+     * @param outOffset index in out where the first result is stored
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, int xOffset, double[] out, int outOffset, int length) {
+        Arrays.fill(out, outOffset, outOffset + length, constantValue);
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at once
+     * @param x the value of the independent variable
+     * @return f(x) paired with f'(x); the derivative is 0
+     */
+    @Override
+    public Dual evaluateWithDerivative(double x) {
+        return new Dual(constantValue, 0);
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at a run
+     * of points. Every value is this constant and every
+     * derivative is 0
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param values where the values of the function go
+     * @param derivatives where the values of the derivative go
+     * @param outOffset index in values and derivatives of the first result
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluateWithDerivative(double[] xs, int xOffset, double[] values, double[] derivatives,
+                                       int outOffset, int length) {
+        Arrays.fill(values, outOffset, outOffset + length, constantValue);
+        Arrays.fill(derivatives, outOffset, outOffset + length, 0);
+    }
+
     /**
      * Compute the integral of this function over its independent variable and
      * the given range using the sum-of-trapezoids technique. Subclasses
@@ -61,6 +115,27 @@ public class Constant extends AbstractFunction{
         return (upper - lower) * constantValue;
     }
 
+    /**
+     * Two constants are equal if they hold the same value. Unlike ==,
+     * NaN equals NaN and 0.0 does not equal -0.0
+     * @param other the object to compare with
+     * @return true iff other is a constant with the same value
+     */
+    @Override
+    public boolean equals(Object other){
+        return other instanceof Constant
+                && Double.compare(constantValue, ((Constant) other).constantValue) == 0;
+    }
+
+    /**
+     * A hash code consistent with equals
+     * @return the hash of the constant's value
+     */
+    @Override
+    public int hashCode(){
+        return Double.hashCode(constantValue);
+    }
+
     /**
      * Return the string value of the constant
      * @return the textual representation of this function
@@ -69,5 +144,14 @@ public class Constant extends AbstractFunction{
         return "" + constantValue;
     }
 
+    /**
+     * Write the value of the constant
+     * @param out where the text goes
+     * @throws IOException if out does
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append(Double.toString(constantValue));
+    }
+
 
 }
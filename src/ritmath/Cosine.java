@@ -1,5 +1,7 @@
 package ritmath;
 
+import java.io.IOException;
+
 /**
  * The cosine function from trigonometry
  *
@@ -18,19 +20,24 @@ public class Cosine extends AbstractFunction {
     }
 
     /**
-     * Display the function as a human-readable string with no new-line
-     * characters. (This forces subclasses to implement toString)
-     * @return the textual representation of this function
+     * Write the function as human-readable text with no new-line
+     * characters. A constant argument is written as the value of the
+     * cosine
+     * @param out where the text goes
+     * @throws IOException if out does
      */
-    public String toString() {
-        String cosStr = "cos( ";
-        for (int i = 0; i < super.terms.length; i++) {
-            if(super.get(i).isConstant()){
-                return "" + Math.cos(super.get(i).evaluate(0));
+    public void writeTo(Appendable out) throws IOException {
+        for (MathFunction term : super.terms) {
+            if (term.isConstant()) {
+                out.append(Double.toString(Math.cos(term.evaluate(0))));
+                return;
             }
-            cosStr += super.get(i).toString();
         }
-        return cosStr + " )";
+        out.append("cos( ");
+        for (MathFunction term : super.terms) {
+            term.writeTo(out);
+        }
+        out.append(" )");
     }
 
     /**
@@ -43,11 +50,95 @@ public class Cosine extends AbstractFunction {
     }
 
     /**
-     * Create a new function that is the derivative of this one
+     * Compute the value of this function at a run of points. The argument
+     * is evaluated for the whole run first, then the cosine is taken in place
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param out where the results go
+     * @param outOffset index in out where the first result is stored
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, int xOffset, double[] out, int outOffset, int length) {
+        cos[0].evaluate(xs, xOffset, out, outOffset, length);
+        for (int i = outOffset; i < outOffset + length; i++) {
+            out[i] = Math.cos(out[i]);
+        }
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at once
+     * @param x the value of the independent variable
+     * @return f(x) paired with f'(x); by the chain rule, cos(u)' = -sin(u) * u'
+     */
+    @Override
+    public Dual evaluateWithDerivative(double x) {
+        Dual u = cos[0].evaluateWithDerivative(x);
+        return new Dual(Math.cos(u.getValue()), -Math.sin(u.getValue()) * u.getDerivative());
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at a run
+     * of points. The argument is done for the whole run
+     * first, then the chain rule is applied in place
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param values where the values of the function go
+     * @param derivatives where the values of the derivative go
+     * @param outOffset index in values and derivatives of the first result
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluateWithDerivative(double[] xs, int xOffset, double[] values, double[] derivatives,
+                                       int outOffset, int length) {
+        cos[0].evaluateWithDerivative(xs, xOffset, values, derivatives, outOffset, length);
+        for (int i = outOffset; i < outOffset + length; i++) {
+            double v = values[i];
+            values[i] = Math.cos(v);
+            derivatives[i] = -Math.sin(v) * derivatives[i];
+        }
+    }
+
+    /**
+     * The cost of computing the cosine itself
+     * @return NodeInfo.TRIG_COST
+     */
+    @Override
+    protected long ownCost() {
+        return NodeInfo.TRIG_COST;
+    }
+
+    /**
+     * Build the function that is the derivative of this one
      * @return df(x)/dx
      */
-    public MathFunction derivative() {
+    protected MathFunction computeDerivative() {
 
-        return FunctionFactory.product(new Constant(-1.0), new Sine(cos), cos[0].derivative());
+        return FunctionFactory.product(FunctionFactory.constant(-1.0), FunctionFactory.sine(cos),
+                cos[0].derivative());
+    }
+
+    /**
+     * Compute the integral of this function over its independent variable
+     * and the given range. When the argument is affine in x, a*x + b, the
+     * exact antiderivative sin(a*x + b) / a is used; otherwise the
+     * sum-of-trapezoids technique is used
+     * @param lower the starting point of the integral's interval
+     * @param upper the ending point of the integral's interval
+     * @param accuracy the number of sections into which the interval
+     *                 should be divided for the calculation (not used
+     *                 if the argument is affine)
+     * @return the integral result as a double
+     */
+    @Override
+    public double integral(double lower, double upper, int accuracy) {
+        Affine arg = Affine.of(cos[0]);
+        if (arg == null) {
+            return super.integral(lower, upper, accuracy);
+        }
+        if (arg.slope == 0) {
+            return (upper - lower) * Math.cos(arg.intercept);
+        }
+        return (Math.sin(cos[0].evaluate(upper)) - Math.sin(cos[0].evaluate(lower))) / arg.slope;
     }
 }
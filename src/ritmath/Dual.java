@@ -0,0 +1,49 @@
+package ritmath;
+
+/**
+ * The value of a function and of its derivative at one point, as
+ * computed together by MathFunction.evaluateWithDerivative
+ *
+ * @author Key'Mon Jenkins
+ */
+public class Dual {
+    /** f(x) */
+    private final double value;
+
+    /** f'(x) */
+    private final double derivative;
+
+    /**
+     * Pair a value with a derivative
+     * @param value the value of the function
+     * @param derivative the value of its derivative
+     */
+    public Dual(double value, double derivative){
+        this.value = value;
+        this.derivative = derivative;
+    }
+
+    /**
+     * The value of the function
+     * @return f(x)
+     */
+    public double getValue(){
+        return value;
+    }
+
+    /**
+     * The value of the function's derivative
+     * @return f'(x)
+     */
+    public double getDerivative(){
+        return derivative;
+    }
+
+    /**
+     * Show both numbers
+     * @return the textual representation of this pair
+     */
+    public String toString(){
+        return "( " + value + ", " + derivative + " )";
+    }
+}
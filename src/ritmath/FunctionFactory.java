@@ -1,16 +1,38 @@
 package ritmath;
 
+import ritmath.instrument.Allocations;
+
+import java.lang.ref.WeakReference;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 /**
  *Creation methods for MathFunction classes. Note: Many of these factory methods
  * will check if what they have built is actually a constant — a function with no
  * references to x. If that is the case the function will be evaluated and that
  * value will be returned as an instance of Constant.
+ * All functions handed out are interned: building a function equal to one that
+ * is still in use returns the existing object, so equal subtrees are shared.
+ * Products of several x factors, and sums of such products from the highest
+ * power down, are built as a single Polynomial, which is written out exactly
+ * as they would have been; mixed products and sums keep their factors and
+ * terms in order. Every node built is counted by Allocations when that
+ * is turned on.
  *
  * @author Key'Mon Jenkins
  */
 public class FunctionFactory {
 
-    private static Variable var;
+    private static MathFunction var;
+
+    /**
+     * The canonical instance of every interned function still in use. Keys are
+     * held weakly, and each value refers weakly to its own key, so the table
+     * does not keep functions alive
+     */
+    private static final Map<MathFunction, WeakReference<MathFunction>> interned =
+            new WeakHashMap<>();
 
     public FunctionFactory(){
 
@@ -22,7 +44,28 @@ public class FunctionFactory {
      * @return a new instance of constant representing the given value
      */
     public static MathFunction constant(double value){
-        return new Constant(value);
+        return intern(new Constant(value));
+    }
+
+    /**
+     * Find the canonical instance of a function
+     * @param f a newly built function
+     * @return the function already in use that equals f, or f itself
+     * (which becomes the canonical instance) if there is none
+     */
+    public static MathFunction intern(MathFunction f){
+        synchronized (interned){
+            WeakReference<MathFunction> ref = interned.get(f);
+            MathFunction existing = ref == null ? null : ref.get();
+            if(Allocations.ENABLED){
+                Allocations.record(f, existing != null);
+            }
+            if(existing != null){
+                return existing;
+            }
+            interned.put(f, new WeakReference<>(f));
+            return f;
+        }
     }
 
     /**
@@ -31,7 +74,7 @@ public class FunctionFactory {
      */
     public static MathFunction x(){
         if(var == null){
-            var = new Variable();
+            var = intern(new Variable());
         }
         return var;
     }
@@ -43,11 +86,15 @@ public class FunctionFactory {
      * involved. If no terms, return the constant 0
      */
     public static MathFunction sum(MathFunction... args){
-        MathFunction sum  = new Sum(args);
+        Sum sum  = new Sum(args);
         if(sum.isConstant()){
-            return new Constant(sum.evaluate(0));
+            return constant(sum.evaluate(0));
         }
-        return new Sum(args);
+        MathFunction polynomial = Polynomial.collect(sum);
+        if(polynomial != null){
+            return polynomial;
+        }
+        return intern(sum);
     }
 
     /**
@@ -57,28 +104,132 @@ public class FunctionFactory {
      * are involved. If no terms, return the constant 1.
      */
     public static MathFunction product(MathFunction... args){
-        MathFunction product = new Product(args);
+        Product product = new Product(args);
         if(product.isConstant()){
-            return new Constant(product.evaluate(0));
+            return constant(product.evaluate(0));
+        }
+        MathFunction polynomial = Polynomial.collect(product);
+        if(polynomial != null){
+            return polynomial;
+        }
+        return intern(product);
+    }
+
+    /**
+     * Makes a polynomial in x
+     * @param coefficients coefficients[k] is the coefficient of x to the k
+     * @return a Polynomial instance, or a constant, x, product or sum
+     * if the polynomial has degree 0 or 1
+     */
+    public static MathFunction polynomial(double... coefficients){
+        int n = coefficients.length;
+        while(n > 0 && coefficients[n - 1] == 0){
+            n--;
+        }
+        if(n <= 1){
+            return constant(n == 0 ? 0 : coefficients[0]);
+        }
+        if(n == 2){
+            MathFunction term = coefficients[1] == 1 ? x() : product(x(), constant(coefficients[1]));
+            return coefficients[0] == 0 ? term : sum(term, constant(coefficients[0]));
         }
-        return new Product(args);
+        return intern(new Polynomial(coefficients));
+    }
+
+    /**
+     * Makes x raised to a power
+     * @param exponent the power
+     * @return a Polynomial instance, or 1 or x for the exponents 0 and 1
+     * @rit.pre exponent is at least 0
+     */
+    public static MathFunction power(int exponent){
+        if(exponent < 0){
+            throw new IllegalArgumentException("negative exponent " + exponent);
+        }
+        double[] coefficients = new double[exponent + 1];
+        coefficients[exponent] = 1;
+        return polynomial(coefficients);
     }
 
     /**
      * Makes a Sine object
      * @param args the function that will be the sine's argument
-     * @return a Sine instance, or something equivalent if constants are involved
+     * @return a Sine instance, or the constant sine of a constant argument
      */
     public static MathFunction sine(MathFunction... args){
-        return new Sine(args);
+        MathFunction sine = new Sine(args);
+        if(sine.isConstant()){
+            return constant(sine.evaluate(0));
+        }
+        return intern(sine);
     }
 
     /**
      * Makes a Cosine object
      * @param args the function that will be the cosine's argument
-     * @return a Cosine instance, or something equivalent if constants are involved
+     * @return a Cosine instance, or the constant cosine of a constant argument
      */
     public static MathFunction cosine(MathFunction... args){
-        return new Cosine(args);
+        MathFunction cosine = new Cosine(args);
+        if(cosine.isConstant()){
+            return constant(cosine.evaluate(0));
+        }
+        return intern(cosine);
+    }
+
+    /**
+     * Collapse every constant subtree of a function into a single
+     * Constant, however deep inside the function it is. Functions made by
+     * this factory, and their derivatives, which are built with it, are
+     * already folded; this is for trees whose nodes were built with their
+     * constructors
+     * @param f the function to fold
+     * @return an equal function with no constant subtree other than
+     * Constant leaves, or f itself if it has none
+     */
+    public static MathFunction fold(MathFunction f){
+        return fold(f, new IdentityHashMap<>());
+    }
+
+    private static MathFunction fold(MathFunction f, Map<MathFunction, MathFunction> done){
+        MathFunction folded = done.get(f);
+        if(folded != null){
+            return folded;
+        }
+        if(f instanceof Constant || f instanceof Variable || f instanceof Polynomial){
+            folded = f;
+        }
+        else if(f.isConstant()){
+            folded = constant(f.evaluate(0));
+        }
+        else if(f instanceof Sum || f instanceof Product || f instanceof Sine || f instanceof Cosine){
+            AbstractFunction node = (AbstractFunction) f;
+            MathFunction[] children = new MathFunction[node.numChildren()];
+            boolean changed = false;
+            for(int i = 0; i < children.length; i++){
+                children[i] = fold(node.get(i), done);
+                changed |= children[i] != node.get(i);
+            }
+            if(!changed){
+                folded = f;
+            }
+            else if(f instanceof Sum){
+                folded = sum(children);
+            }
+            else if(f instanceof Product){
+                folded = product(children);
+            }
+            else if(f instanceof Sine){
+                folded = sine(children);
+            }
+            else{
+                folded = cosine(children);
+            }
+        }
+        else{
+            folded = f;
+        }
+        done.put(f, folded);
+        return folded;
     }
 }
@@ -0,0 +1,149 @@
+package ritmath;
+
+import java.util.PriorityQueue;
+
+/**
+ * Adaptive integration with the 7-point Gauss / 15-point Kronrod rule.
+ * Each interval is integrated with both rules, which share their Gauss
+ * points, and the difference between the two is taken as the interval's
+ * error. The interval with the largest error is split in half until the
+ * total error meets the tolerance. Smooth stretches are covered by a few
+ * wide intervals and the work goes where the function is hard.
+ *
+ * @author Key'Mon Jenkins
+ */
+class GaussKronrod {
+
+    /** Kronrod abscissae on [-1, 1]; the odd entries are the Gauss points */
+    private static final double[] XK = {
+            0.991455371120812639206854697526329, 0.949107912342758524526189684047851,
+            0.864864423359769072789712788640926, 0.741531185599394439863864773280788,
+            0.586087235467691130294144845693013, 0.405845151377397166906606412076961,
+            0.207784955007898467600689403773245, 0.000000000000000000000000000000000
+    };
+
+    /** Kronrod weights for XK */
+    private static final double[] WK = {
+            0.022935322010529224963732008058970, 0.063092092629978553290700663189204,
+            0.104790010322250183839876322541518, 0.140653259715525918745189590510238,
+            0.169004726639267902826583426598550, 0.190350578064785409913256402421014,
+            0.204432940075298892414161999234649, 0.209482141084727828012999174891714
+    };
+
+    /** Gauss weights for XK[1], XK[3], XK[5] and XK[7] */
+    private static final double[] WG = {
+            0.129484966168869693270611432679082, 0.279705391489276667901467771423780,
+            0.381830050505118944950369775488975, 0.417959183673469387755102040816327
+    };
+
+    /** points evaluated per interval */
+    private static final int POINTS = 15;
+
+    /** give up refining after this many intervals */
+    static final int MAX_INTERVALS = 10000;
+
+    /**
+     * One interval and the result of the rules on it
+     */
+    private static class Piece implements Comparable<Piece> {
+        final double lower;
+        final double upper;
+        final double value;
+        final double error;
+
+        Piece(double lower, double upper, double value, double error) {
+            this.lower = lower;
+            this.upper = upper;
+            this.value = value;
+            this.error = error;
+        }
+
+        /** largest error first */
+        public int compareTo(Piece other) {
+            return Double.compare(other.error, error);
+        }
+    }
+
+    private final MathFunction f;
+    private final double[] xs = new double[POINTS];
+    private final double[] ys = new double[POINTS];
+    private long evaluations;
+
+    private GaussKronrod(MathFunction f) {
+        this.f = f;
+    }
+
+    /**
+     * Integrate a function to within a tolerance. Refinement stops when the
+     * estimated error is at most max(absTol, relTol * |value|), or when
+     * MAX_INTERVALS intervals are in use; the result's error estimate
+     * tells which
+     * @param f the function to integrate
+     * @param lower the starting point of the integral's interval
+     * @param upper the ending point of the integral's interval
+     * @param absTol absolute error the caller can accept
+     * @param relTol error relative to the result the caller can accept
+     * @return the integral, its error estimate and evaluation count
+     */
+    static IntegralResult integrate(MathFunction f, double lower, double upper,
+                                    double absTol, double relTol) {
+        return new GaussKronrod(f).run(lower, upper, absTol, relTol);
+    }
+
+    private IntegralResult run(double lower, double upper, double absTol, double relTol) {
+        PriorityQueue<Piece> pieces = new PriorityQueue<>();
+        Piece whole = rule(lower, upper);
+        pieces.add(whole);
+        double value = whole.value;
+        double error = whole.error;
+        while (error > Math.max(absTol, relTol * Math.abs(value))
+                && pieces.size() < MAX_INTERVALS) {
+            Piece worst = pieces.poll();
+            double mid = 0.5 * (worst.lower + worst.upper);
+            if (mid == worst.lower || mid == worst.upper) {
+                pieces.add(worst);
+                break;
+            }
+            Piece left = rule(worst.lower, mid);
+            Piece right = rule(mid, worst.upper);
+            pieces.add(left);
+            pieces.add(right);
+            value += left.value + right.value - worst.value;
+            error += left.error + right.error - worst.error;
+        }
+        // add up from scratch to shed the rounding of the running totals
+        value = 0;
+        error = 0;
+        for (Piece piece : pieces) {
+            value += piece.value;
+            error += piece.error;
+        }
+        return new IntegralResult(value, error, evaluations);
+    }
+
+    /**
+     * Apply both rules to one interval, evaluating all 15 points as a batch
+     */
+    private Piece rule(double lower, double upper) {
+        double center = 0.5 * (lower + upper);
+        double half = 0.5 * (upper - lower);
+        for (int i = 0; i < 7; i++) {
+            xs[2 * i] = center - half * XK[i];
+            xs[2 * i + 1] = center + half * XK[i];
+        }
+        xs[14] = center;
+        f.evaluate(xs, ys);
+        evaluations += POINTS;
+
+        double kronrod = WK[7] * ys[14];
+        double gauss = WG[3] * ys[14];
+        for (int i = 0; i < 7; i++) {
+            double pair = ys[2 * i] + ys[2 * i + 1];
+            kronrod += WK[i] * pair;
+            if (i % 2 == 1) {
+                gauss += WG[i / 2] * pair;
+            }
+        }
+        return new Piece(lower, upper, kronrod * half, Math.abs((kronrod - gauss) * half));
+    }
+}
@@ -0,0 +1,62 @@
+package ritmath;
+
+/**
+ * The outcome of an adaptive integration: the value found, how far from
+ * the true integral it is estimated to be, and what it cost
+ *
+ * @author Key'Mon Jenkins
+ */
+public class IntegralResult {
+    /** the computed integral */
+    private final double value;
+
+    /** estimated bound on the absolute error of value */
+    private final double errorEstimate;
+
+    /** how many times the function was evaluated */
+    private final long evaluations;
+
+    /**
+     * Record the outcome of an integration
+     * @param value the computed integral
+     * @param errorEstimate estimated bound on the absolute error of value
+     * @param evaluations how many times the function was evaluated
+     */
+    public IntegralResult(double value, double errorEstimate, long evaluations){
+        this.value = value;
+        this.errorEstimate = errorEstimate;
+        this.evaluations = evaluations;
+    }
+
+    /**
+     * The computed integral
+     * @return the integral result as a double
+     */
+    public double getValue(){
+        return value;
+    }
+
+    /**
+     * How far the value may be from the true integral
+     * @return the estimated absolute error
+     */
+    public double getErrorEstimate(){
+        return errorEstimate;
+    }
+
+    /**
+     * How many times the function was evaluated
+     * @return the number of evaluations used
+     */
+    public long getEvaluations(){
+        return evaluations;
+    }
+
+    /**
+     * Show the value, error estimate and cost
+     * @return the textual representation of this result
+     */
+    public String toString(){
+        return value + " +/- " + errorEstimate + " (" + evaluations + " evaluations)";
+    }
+}
@@ -1,5 +1,7 @@
 package ritmath;
 
+import java.io.IOException;
+
 /**
  * The set of operations that all functions in
  * this system must support
@@ -16,6 +18,77 @@ public interface MathFunction {
      */
     double evaluate(double x);
 
+    /**
+     * Compute the value of this function at every point of an array
+     * @param xs the values of the independent variable
+     * @param out where the results go; out[i] becomes the evaluation at xs[i]
+     * @rit.pre out is at least as long as xs and does not overlap it
+     */
+    default void evaluate(double[] xs, double[] out) {
+        evaluate(xs, 0, out, 0, xs.length);
+    }
+
+    /**
+     * Compute the value of this function at a run of points of an array.
+     * Implementations should give exactly the same results as calling
+     * evaluate(double) once per point
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param out where the results go
+     * @param outOffset index in out where the first result is stored
+     * @param length how many points to evaluate
+     * @rit.pre the two ranges are inside their arrays and do not overlap
+     */
+    default void evaluate(double[] xs, int xOffset, double[] out, int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = evaluate(xs[xOffset + i]);
+        }
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at once,
+     * in a single walk of the function (forward-mode automatic
+     * differentiation). No derivative function is built
+     * @param x the value of the independent variable
+     * @return f(x) paired with f'(x)
+     */
+    default Dual evaluateWithDerivative(double x) {
+        return new Dual(evaluate(x), derivative().evaluate(x));
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at every
+     * point of an array
+     * @param xs the values of the independent variable
+     * @param values where f(xs[i]) goes
+     * @param derivatives where f'(xs[i]) goes
+     * @rit.pre values and derivatives are at least as long as xs and
+     * none of the three arrays overlap
+     */
+    default void evaluateWithDerivative(double[] xs, double[] values, double[] derivatives) {
+        evaluateWithDerivative(xs, 0, values, derivatives, 0, xs.length);
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at a run
+     * of points of an array
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param values where the values of the function go
+     * @param derivatives where the values of the derivative go
+     * @param outOffset index in values and derivatives of the first result
+     * @param length how many points to evaluate
+     * @rit.pre the ranges are inside their arrays and do not overlap
+     */
+    default void evaluateWithDerivative(double[] xs, int xOffset, double[] values, double[] derivatives,
+                                        int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            Dual d = evaluateWithDerivative(xs[xOffset + i]);
+            values[outOffset + i] = d.getValue();
+            derivatives[outOffset + i] = d.getDerivative();
+        }
+    }
+
     /**
      * Is this function a constant value? Does it always evaluate
      * to the same thing independent of x? This predicate is included
@@ -31,6 +104,50 @@ public interface MathFunction {
      */
     MathFunction derivative();
 
+    /**
+     * Facts about the structure of this function: whether it is constant,
+     * its size, depth, hash and estimated evaluation cost. Functions that
+     * are not tree nodes report themselves as a single node
+     * @return the structural information about this function
+     */
+    default NodeInfo info() {
+        return NodeInfo.leaf(isConstant(), hashCode(), NodeInfo.CALL_COST);
+    }
+
+    /**
+     * Write the same human-readable text toString returns, streaming it
+     * to a destination rather than building a String
+     * @param out where the text goes
+     * @throws IOException if out does
+     */
+    default void writeTo(Appendable out) throws IOException {
+        out.append(toString());
+    }
+
+    /**
+     * Write the human-readable text of this function, but no more than
+     * a given number of characters of it. If the text is longer, the
+     * first maxLength characters are written followed by "..." and the
+     * rest of the function is not visited
+     * @param out where the text goes
+     * @param maxLength the most characters of the text to write
+     * @return true if the whole text was written
+     * @throws IOException if out does
+     */
+    default boolean writeTo(Appendable out, long maxLength) throws IOException {
+        TruncatingAppendable limited = new TruncatingAppendable(out, maxLength);
+        try {
+            writeTo(limited);
+            return true;
+        } catch (IOException e) {
+            if (!limited.isFull()) {
+                throw e;
+            }
+            out.append("...");
+            return false;
+        }
+    }
+
     /**
      * Compute the integral of this function over its independent
      * variable and the given range
@@ -43,4 +160,22 @@ public interface MathFunction {
      */
     double integral(double lower, double upper, int accuracy);
 
+    /**
+     * Compute the integral of this function over its independent
+     * variable and the given range to within a tolerance, using adaptive
+     * Gauss-Kronrod (7/15 point) quadrature. The interval is split where
+     * the function is hard to integrate, so smooth functions need far
+     * fewer evaluations than a fixed number of trapezoids
+     * @param lower the starting point of the integral's interval
+     * @param upper the ending point of the integral's interval
+     * @param absTol the absolute error that is acceptable
+     * @param relTol the error relative to the result that is acceptable;
+     *               the computation stops once either tolerance is met
+     * @return the integral together with an error estimate and the
+     * number of evaluations used
+     */
+    default IntegralResult integral(double lower, double upper, double absTol, double relTol) {
+        return GaussKronrod.integrate(this, lower, upper, absTol, relTol);
+    }
+
 }
@@ -0,0 +1,135 @@
+package ritmath;
+
+/**
+ * Facts about a function tree that depend only on its structure: whether
+ * it is constant, how many nodes it has, how deep it is, its structural
+ * hash and roughly what one evaluation costs. A node's facts are worked
+ * out from its children's, so they take constant time to find once the
+ * children's are known, and they never change after the node is built.
+ * Sizes and costs count a subtree once for every place it is used, the
+ * way evaluate(double) visits it; they stop at Long.MAX_VALUE rather than
+ * overflow.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class NodeInfo {
+
+    /** the cost of sin or cos, in units of one add or multiply */
+    public static final long TRIG_COST = 20;
+
+    /** the cost assumed for calling a function that is not a tree node */
+    public static final long CALL_COST = 50;
+
+    /** true iff the function does not depend on x */
+    private final boolean constant;
+
+    /** nodes in the tree, counting shared subtrees at every use */
+    private final long size;
+
+    /** nodes on the longest path from the root to a leaf */
+    private final int depth;
+
+    /** the structural hash code of the function */
+    private final int hash;
+
+    /** estimated cost of one evaluation, in units of one add or multiply */
+    private final long cost;
+
+    private NodeInfo(boolean constant, long size, int depth, int hash, long cost) {
+        this.constant = constant;
+        this.size = size;
+        this.depth = depth;
+        this.hash = hash;
+        this.cost = cost;
+    }
+
+    /**
+     * The facts about a node that has no children
+     * @param constant whether the node is constant
+     * @param hash its structural hash code
+     * @param cost estimated cost of evaluating it
+     * @return the facts about the node
+     */
+    public static NodeInfo leaf(boolean constant, int hash, long cost) {
+        return new NodeInfo(constant, 1, 1, hash, cost);
+    }
+
+    /**
+     * The facts about a node that has children. It is constant iff all of
+     * its children are
+     * @param children the node's children
+     * @param hash the node's structural hash code
+     * @param ownCost the cost of the node's own work, not counting its
+     *                children's
+     * @return the facts about the node
+     */
+    public static NodeInfo combine(MathFunction[] children, int hash, long ownCost) {
+        boolean constant = true;
+        long size = 1;
+        int depth = 0;
+        long cost = ownCost;
+        for (MathFunction child : children) {
+            NodeInfo c = child.info();
+            constant &= c.constant;
+            size = saturatedAdd(size, c.size);
+            depth = Math.max(depth, c.depth);
+            cost = saturatedAdd(cost, c.cost);
+        }
+        return new NodeInfo(constant, size, depth + 1, hash, cost);
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Does the function not depend on x?
+     * @return true iff the function is constant
+     */
+    public boolean isConstant() {
+        return constant;
+    }
+
+    /**
+     * How many nodes the function has, counting a shared subtree once
+     * for every place it is used
+     * @return at least 1
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * How many nodes are on the longest path from the root to a leaf
+     * @return at least 1
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * The structural hash code of the function
+     * @return the same value as the function's hashCode()
+     */
+    public int getHash() {
+        return hash;
+    }
+
+    /**
+     * Roughly what one call of evaluate(double) costs, in units of one
+     * floating-point add or multiply
+     * @return the estimated cost
+     */
+    public long getCost() {
+        return cost;
+    }
+
+    /**
+     * Show the facts
+     * @return the textual representation of this information
+     */
+    public String toString() {
+        return (constant ? "constant, " : "") + size + " nodes, depth " + depth + ", cost " + cost;
+    }
+}
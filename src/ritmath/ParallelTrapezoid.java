@@ -0,0 +1,91 @@
+package ritmath;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The sum-of-trapezoids integral, computed on a ForkJoinPool: the one
+ * the caller is running in, if any, and otherwise the common pool. The
+ * interior points are split into halves until a piece has at most
+ * CHUNK points; each piece is summed in order using the batch evaluate,
+ * and the halves are added back together in the same fixed order.
+ * Since where the splits fall depends only on the number of points, the
+ * result is the same no matter how many threads do the work.
+ *
+ * @author Key'Mon Jenkins
+ */
+class ParallelTrapezoid extends RecursiveTask<Double> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** largest number of points one task sums by itself */
+    private static final int CHUNK = 1 << 16;
+
+    /** points evaluated per call to the batch evaluate */
+    private static final int BATCH = 1024;
+
+    private final transient MathFunction f;
+    private final double lower;
+    private final double increment;
+    private final int from;
+    private final int to;
+
+    /**
+     * A task to sum f at lower + increment * i for from &lt;= i &lt; to
+     */
+    private ParallelTrapezoid(MathFunction f, double lower, double increment, int from, int to) {
+        this.f = f;
+        this.lower = lower;
+        this.increment = increment;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Compute the integral of a function with the sum-of-trapezoids
+     * technique, using the same points as AbstractFunction.integral
+     * @param f the function to integrate
+     * @param lower the starting point of the integral's interval
+     * @param upper the ending point of the integral's interval
+     * @param accuracy the number of sections into which the interval
+     *                 is divided
+     * @return the integral result as a double
+     */
+    static double integrate(MathFunction f, double lower, double upper, int accuracy) {
+        double increment = (upper - lower) / accuracy;
+        ParallelTrapezoid task = new ParallelTrapezoid(f, lower, increment, 1, accuracy);
+        double interior = ForkJoinTask.inForkJoinPool() ? task.invoke() : ForkJoinPool.commonPool().invoke(task);
+        return (increment / 2) * (2 * interior + f.evaluate(upper) + f.evaluate(lower));
+    }
+
+    @Override
+    protected Double compute() {
+        if (to - from <= CHUNK) {
+            return sequentialSum();
+        }
+        int mid = (from + to) >>> 1;
+        ParallelTrapezoid left = new ParallelTrapezoid(f, lower, increment, from, mid);
+        ParallelTrapezoid right = new ParallelTrapezoid(f, lower, increment, mid, to);
+        left.fork();
+        double rightSum = right.compute();
+        return left.join() + rightSum;
+    }
+
+    private double sequentialSum() {
+        double[] xs = new double[Math.min(BATCH, to - from)];
+        double[] ys = new double[xs.length];
+        double sum = 0;
+        for (int start = from; start < to; start += BATCH) {
+            int n = Math.min(BATCH, to - start);
+            for (int i = 0; i < n; i++) {
+                xs[i] = increment * (start + i) + lower;
+            }
+            f.evaluate(xs, 0, ys, 0, n);
+            for (int i = 0; i < n; i++) {
+                sum += ys[i];
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,396 @@
+package ritmath;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A polynomial in x of degree 2 or more, held as its coefficients and
+ * evaluated with Horner's scheme. FunctionFactory builds one in place of
+ * a product of several x factors, or of a sum of such products from the
+ * highest power down, so that x * x * x * 3.0 costs three multiplications
+ * and three additions rather than a walk over four children, and so that
+ * its derivative and integral are exact. It is written out the way the
+ * equivalent sum of products would be.
+ *
+ * @author Key'Mon Jenkins
+ */
+public class Polynomial extends AbstractFunction {
+    /**
+     * coefficients[k] multiplies x to the k; the last one is not 0 and
+     * there are at least three
+     */
+    private final double[] coefficients;
+
+    /**
+     * Create a polynomial function
+     * @param coefficients coefficients[k] is the coefficient of x to the k
+     * @rit.pre the polynomial has degree 2 or more once trailing zero
+     * coefficients are dropped
+     */
+    protected Polynomial(double... coefficients) {
+        super();
+        int n = coefficients.length;
+        while (n > 0 && coefficients[n - 1] == 0) {
+            n--;
+        }
+        if (n < 3) {
+            throw new IllegalArgumentException("degree below 2: " + Arrays.toString(coefficients));
+        }
+        this.coefficients = Arrays.copyOf(coefficients, n);
+    }
+
+    /**
+     * The highest power of x in the polynomial
+     * @return at least 2
+     */
+    public int degree() {
+        return coefficients.length - 1;
+    }
+
+    /**
+     * One coefficient of the polynomial
+     * @param k the power of x
+     * @return the coefficient of x to the k, 0 if k is above the degree
+     */
+    public double coefficient(int k) {
+        return k < coefficients.length ? coefficients[k] : 0;
+    }
+
+    /**
+     * Is the function just a constant value; no, it has degree 2 or more
+     * @return false
+     */
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+
+    /**
+     * The structural information about a polynomial
+     * @return a leaf that is not constant and costs one multiply and one
+     * add per degree
+     */
+    @Override
+    protected NodeInfo computeInfo() {
+        return NodeInfo.leaf(false, hashCode(), 2L * degree());
+    }
+
+    /**
+     * Build the function that is the derivative of this one, term by term
+     * @return the polynomial one degree lower
+     */
+    protected MathFunction computeDerivative() {
+        double[] d = new double[degree()];
+        for (int k = 1; k < coefficients.length; k++) {
+            d[k - 1] = k * coefficients[k];
+        }
+        return FunctionFactory.polynomial(d);
+    }
+
+    /**
+     * Compute the value of this function with Horner's scheme
+     * @param x the value of the independent variable
+     * @return the evaluation of the function at the given x
+     */
+    public double evaluate(double x) {
+        double[] c = coefficients;
+        double value = c[c.length - 1];
+        for (int k = c.length - 2; k >= 0; k--) {
+            value = value * x + c[k];
+        }
+        return value;
+    }
+
+    /**
+     * Compute the value of this function at a run of points
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param out where the results go
+     * @param outOffset index in out where the first result is stored
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, int xOffset, double[] out, int outOffset, int length) {
+        double[] c = coefficients;
+        double top = c[c.length - 1];
+        for (int i = 0; i < length; i++) {
+            double x = xs[xOffset + i];
+            double value = top;
+            for (int k = c.length - 2; k >= 0; k--) {
+                value = value * x + c[k];
+            }
+            out[outOffset + i] = value;
+        }
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at once,
+     * carrying the derivative through the same Horner loop
+     * @param x the value of the independent variable
+     * @return f(x) paired with f'(x)
+     */
+    @Override
+    public Dual evaluateWithDerivative(double x) {
+        double[] c = coefficients;
+        double value = c[c.length - 1];
+        double derivative = 0;
+        for (int k = c.length - 2; k >= 0; k--) {
+            derivative = derivative * x + value;
+            value = value * x + c[k];
+        }
+        return new Dual(value, derivative);
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at a run
+     * of points
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param values where the values of the function go
+     * @param derivatives where the values of the derivative go
+     * @param outOffset index in values and derivatives of the first result
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluateWithDerivative(double[] xs, int xOffset, double[] values, double[] derivatives,
+                                       int outOffset, int length) {
+        double[] c = coefficients;
+        for (int i = 0; i < length; i++) {
+            double x = xs[xOffset + i];
+            double value = c[c.length - 1];
+            double derivative = 0;
+            for (int k = c.length - 2; k >= 0; k--) {
+                derivative = derivative * x + value;
+                value = value * x + c[k];
+            }
+            values[outOffset + i] = value;
+            derivatives[outOffset + i] = derivative;
+        }
+    }
+
+    /**
+     * Compute the integral of this function exactly, from its
+     * antiderivative
+     * @param lower the starting point of the integral's interval
+     * @param upper the ending point of the integral's interval
+     * @param accuracy not used; the integral has a closed form
+     * @return the integral result as a double
+     */
+    @Override
+    public double integral(double lower, double upper, int accuracy) {
+        return antiderivative(upper) - antiderivative(lower);
+    }
+
+    /**
+     * The antiderivative that is 0 at x = 0, by Horner's scheme
+     */
+    private double antiderivative(double x) {
+        double[] c = coefficients;
+        double value = 0;
+        for (int k = c.length - 1; k >= 0; k--) {
+            value = value * x + c[k] / (k + 1);
+        }
+        return value * x;
+    }
+
+    /**
+     * Two polynomials are equal if they have the same coefficients
+     * @param other the object to compare with
+     * @return true iff other is a polynomial with the same coefficients
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Polynomial
+                && Arrays.equals(coefficients, ((Polynomial) other).coefficients);
+    }
+
+    /**
+     * A hash code consistent with equals
+     * @return the hash of the coefficients
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Polynomial.class.getName().hashCode() + Arrays.hashCode(coefficients);
+    }
+
+    /**
+     * Write the polynomial as the sum of products it stands for: the terms
+     * from the highest power down, each written as x repeated and then its
+     * coefficient, and the constant last
+     * @param out where the text goes
+     * @throws IOException if out does
+     */
+    public void writeTo(Appendable out) throws IOException {
+        int terms = 0;
+        for (double c : coefficients) {
+            if (c != 0) {
+                terms++;
+            }
+        }
+        if (terms > 1) {
+            out.append("( ");
+        }
+        boolean first = true;
+        for (int k = coefficients.length - 1; k >= 0; k--) {
+            double c = coefficients[k];
+            if (c == 0) {
+                continue;
+            }
+            if (!first) {
+                out.append(" + ");
+            }
+            first = false;
+            if (k == 0) {
+                out.append(Double.toString(c));
+            } else if (k == 1 && c == 1) {
+                out.append("x");
+            } else {
+                out.append("( x");
+                for (int i = 1; i < k; i++) {
+                    out.append(" * x");
+                }
+                if (c != 1) {
+                    out.append(" * ").append(Double.toString(c));
+                }
+                out.append(" )");
+            }
+        }
+        if (terms > 1) {
+            out.append(" )");
+        }
+    }
+
+    /**
+     * The coefficients of a function that is a polynomial of degree 0 or
+     * 1 or a Polynomial
+     * @param f the function
+     * @return its coefficients, lowest power first, or null if f is not
+     * a constant, x, a product of x and constants, or a Polynomial
+     */
+    static double[] coefficientsOf(MathFunction f) {
+        if (f instanceof Polynomial) {
+            return ((Polynomial) f).coefficients.clone();
+        }
+        if (f instanceof Variable) {
+            return new double[]{0, 1};
+        }
+        if (f.isConstant()) {
+            return new double[]{f.evaluate(0)};
+        }
+        if (f instanceof Product) {
+            double[] result = {1};
+            for (MathFunction factor : (Product) f) {
+                double[] c = factor instanceof Product ? null : coefficientsOf(factor);
+                if (c == null) {
+                    return null;
+                }
+                result = multiply(result, c);
+            }
+            return result;
+        }
+        return null;
+    }
+
+    /**
+     * The coefficients of the product of two polynomials
+     */
+    static double[] multiply(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b.length; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replace a normalized product of x factors, and perhaps a constant,
+     * by one Polynomial. Products with any other factor are left alone,
+     * so their factors keep their order and their constant its place in
+     * the rounding, and the Polynomial written out is the product it
+     * replaces, character for character
+     * @param product a product built by FunctionFactory
+     * @return the product as a Polynomial, or null if it has a factor
+     * other than x and a constant, or fewer than two x factors
+     */
+    static MathFunction collect(Product product) {
+        int degree = 0;
+        double constant = 1;
+        for (MathFunction factor : product) {
+            if (factor instanceof Variable) {
+                degree++;
+            } else if (factor.isConstant()) {
+                constant *= factor.evaluate(0);
+            } else {
+                return null;
+            }
+        }
+        if (degree < 2) {
+            return null;
+        }
+        double[] poly = new double[degree + 1];
+        poly[degree] = constant;
+        return FunctionFactory.polynomial(poly);
+    }
+
+    /**
+     * Replace a normalized sum of terms c * x to the k by one Polynomial,
+     * if the powers go down from at least 2 one term after the other, with
+     * the constant, if any, last. That is the order a Polynomial is written
+     * in, so the Polynomial written out is the sum it replaces, character
+     * for character. Sums in any other order, or with any other term, are
+     * left alone
+     * @param sum a sum built by FunctionFactory
+     * @return the sum as a Polynomial, or null if it is not a sum of
+     * such terms in that order
+     */
+    static MathFunction collect(Sum sum) {
+        double[] poly = null;
+        int last = Integer.MAX_VALUE;
+        for (MathFunction term : sum) {
+            double[] c = writtenAsTerm(term) ? coefficientsOf(term) : null;
+            int k = c == null ? -1 : c.length - 1;
+            if (k < 0 || k >= last || !isMonomial(c) || (poly == null && k < 2)) {
+                return null;
+            }
+            if (poly == null) {
+                poly = new double[k + 1];
+            }
+            poly[k] = c[k];
+            last = k;
+        }
+        return poly == null ? null : FunctionFactory.polynomial(poly);
+    }
+
+    /**
+     * Is a function written out the way a Polynomial writes one of its
+     * terms: a constant, x, x times a constant, or a Polynomial
+     */
+    private static boolean writtenAsTerm(MathFunction f) {
+        if (!(f instanceof Product)) {
+            return f instanceof Variable || f instanceof Polynomial || f.isConstant();
+        }
+        int xs = 0;
+        for (MathFunction factor : (Product) f) {
+            if (factor instanceof Variable) {
+                xs++;
+            } else if (!factor.isConstant()) {
+                return false;
+            }
+        }
+        return xs == 1;
+    }
+
+    /**
+     * Is a polynomial a single term c * x to the k, with c not 0
+     */
+    private static boolean isMonomial(double[] c) {
+        for (int k = 0; k < c.length - 1; k++) {
+            if (c[k] != 0) {
+                return false;
+            }
+        }
+        return c[c.length - 1] != 0;
+    }
+}
@@ -1,6 +1,8 @@
 package ritmath;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * A function representing the product of factors
@@ -37,10 +39,10 @@ public class Product extends AbstractFunction{
         }
         if(constants == 0){
             tempProd.removeAll(tempTemp);
-            tempProd.add(new Constant(0));
+            tempProd.add(FunctionFactory.constant(0));
         }
         else if(constants != 1){
-            tempProd.add(new Constant(constants));
+            tempProd.add(FunctionFactory.constant(constants));
         }
         MathFunction[] temp = new MathFunction[tempProd.size()];
         for(int i = 0; i < tempProd.size(); i++){
@@ -50,25 +52,23 @@ public class Product extends AbstractFunction{
     }
 
     /**
-     * Return a string of the product in infix notation, with parentheses
-     * @return the textual representation of this function
+     * Write the product in infix notation, with parentheses
+     * @param out where the text goes
+     * @throws IOException if out does
      */
-    public String toString() {
-        String prod = "";
-        prod += "( ";
+    public void writeTo(Appendable out) throws IOException {
         if(super.numChildren() == 1){
-            prod = "";
-            return prod + super.get(0);
+            super.terms[0].writeTo(out);
+            return;
         }
-        else{
-            for(int i = 0; i < super.numChildren(); i++){
-                prod += super.get(i);
-                if(i + 1 < super.numChildren()){
-                    prod += " * ";
-                }
+        out.append("( ");
+        for(int i = 0; i < super.numChildren(); i++){
+            if(i > 0){
+                out.append(" * ");
             }
+            super.terms[i].writeTo(out);
         }
-        return prod + " )";
+        out.append(" )");
     }
 
     /**
@@ -85,21 +85,114 @@ public class Product extends AbstractFunction{
     }
 
     /**
-     *Create a new function that is the derivative of this one. The derivative
+     * Compute the value of this function at a run of points. The points
+     * are handled in blocks of BLOCK_SIZE; each child evaluates a whole
+     * block before its results are multiplied in, in the same order as
+     * evaluate(double) does
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param out where the results go
+     * @param outOffset index in out where the first result is stored
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, int xOffset, double[] out, int outOffset, int length) {
+        double[] block = new double[Math.min(BLOCK_SIZE, length)];
+        for (int start = 0; start < length; start += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, length - start);
+            int o = outOffset + start;
+            Arrays.fill(out, o, o + n, 1);
+            for (MathFunction temp : super.terms) {
+                temp.evaluate(xs, xOffset + start, block, 0, n);
+                for (int i = 0; i < n; i++) {
+                    out[o + i] *= block[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at once
+     * @param x the value of the independent variable
+     * @return f(x) paired with f'(x); the product rule
+     * (fg)' = f'g + fg' is applied one factor at a time
+     */
+    @Override
+    public Dual evaluateWithDerivative(double x) {
+        double value = 1;
+        double derivative = 0;
+        for (MathFunction temp : super.terms) {
+            Dual d = temp.evaluateWithDerivative(x);
+            derivative = derivative * d.getValue() + value * d.getDerivative();
+            value *= d.getValue();
+        }
+        return new Dual(value, derivative);
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at a run
+     * of points. The points are handled in blocks
+     * of BLOCK_SIZE, like evaluate
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param values where the values of the function go
+     * @param derivatives where the values of the derivative go
+     * @param outOffset index in values and derivatives of the first result
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluateWithDerivative(double[] xs, int xOffset, double[] values, double[] derivatives,
+                                       int outOffset, int length) {
+        int size = Math.min(BLOCK_SIZE, length);
+        double[] blockValues = new double[size];
+        double[] blockDerivs = new double[size];
+        for (int start = 0; start < length; start += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, length - start);
+            int o = outOffset + start;
+            Arrays.fill(values, o, o + n, 1);
+            Arrays.fill(derivatives, o, o + n, 0);
+            for (MathFunction temp : super.terms) {
+                temp.evaluateWithDerivative(xs, xOffset + start, blockValues, blockDerivs, 0, n);
+                for (int i = 0; i < n; i++) {
+                    derivatives[o + i] = derivatives[o + i] * blockValues[i] + values[o + i] * blockDerivs[i];
+                    values[o + i] *= blockValues[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the function that is the derivative of this one. The derivative
      * of a product of TWO factors is the sum of the first factor times the
      * derivative of the second, plus the derivative of the first factor times
-     * the second. This is done recursively to handle more than two factors.
+     * the second. This is applied to the first factor and the product of the
+     * rest, and again to that product, to handle more than two factors.
+     * The nesting is built from the last factor back to the first, and
+     * each suffix product is the next factor times the one before, so the
+     * result is a DAG of a size linear in the number of factors: each
+     * factor's derivative is computed exactly once, each suffix product
+     * and its derivative are built once, and the original factor nodes
+     * are reused rather than copied. Every node is made by FunctionFactory,
+     * so constant parts are folded, and each suffix product is told its
+     * derivative so it never has to build it itself.
      * @return d(fx)/dx
      */
-    public MathFunction derivative() {
-        MathFunction[] temp = new MathFunction[super.numChildren() - 1];
-        if(super.numChildren() == 1){
-            return super.get(0).derivative();
+    protected MathFunction computeDerivative() {
+        int n = super.numChildren();
+        if(n == 0){
+            return FunctionFactory.constant(0);
         }
-        for(int i = 1; i < super.numChildren(); i++){
-            temp[i-1] = super.get(i);
+        MathFunction rest = super.get(n - 1);
+        MathFunction deriv = rest.derivative();
+        for(int i = n - 2; i >= 0; i--){
+            MathFunction factor = super.get(i);
+            deriv = FunctionFactory.sum(FunctionFactory.product(factor, deriv),
+                    FunctionFactory.product(rest, factor.derivative()));
+            rest = FunctionFactory.product(factor, rest);
+            if(rest instanceof Product){
+                ((Product) rest).rememberDerivative(deriv);
+            }
         }
-        return new Sum(new Product(super.get(0), new Product(temp).derivative()),
-                new Product(new Product(temp), super.get(0).derivative()));
+        return deriv;
     }
 }
\ No newline at end of file
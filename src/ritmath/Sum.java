@@ -1,6 +1,8 @@
 package ritmath;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * A function representing the sum of terms
@@ -23,7 +25,7 @@ public class Sum extends AbstractFunction{
      * Combine the constant terms to be one constant
      */
     protected void normalize(){
-        int constants = 0;
+        double constants = 0;
         ArrayList<MathFunction> tempSum = new ArrayList<>();
         for (MathFunction term : super.terms) {
             if(term.isConstant()){
@@ -34,7 +36,7 @@ public class Sum extends AbstractFunction{
             }
         }
         if (constants != 0) {
-            tempSum.add(new Constant(constants));
+            tempSum.add(FunctionFactory.constant(constants));
         }
         MathFunction[] temp = new MathFunction[tempSum.size()];
         for(int i = 0; i < tempSum.size(); i++){
@@ -44,14 +46,14 @@ public class Sum extends AbstractFunction{
     }
 
     /**
-     * Create a new function that is the derivative of this one.
+     * Build the function that is the derivative of this one.
      * The derivative of a sum of terms is the sum of the
      * derivatives of the terms
      * @return df(x)/dx
      */
-    public MathFunction derivative(){
+    protected MathFunction computeDerivative(){
         MathFunction deriv;
-        int addConst = 0;
+        double addConst = 0;
         ArrayList<MathFunction> tempSums = new ArrayList<>();
         for(MathFunction temp: super.terms) {
             deriv = temp.derivative();
@@ -61,7 +63,7 @@ public class Sum extends AbstractFunction{
                 tempSums.add(deriv);
             }
         }
-        tempSums.add(new Constant(addConst));
+        tempSums.add(FunctionFactory.constant(addConst));
         MathFunction[] finalDeriv = tempSums.toArray(new MathFunction[0]);
         return FunctionFactory.sum(finalDeriv);
     }
@@ -79,6 +81,82 @@ public class Sum extends AbstractFunction{
         return evaluatedSums;
     }
 
+    /**
+     * Compute the value of this function at a run of points. The points
+     * are handled in blocks of BLOCK_SIZE; each child evaluates a whole
+     * block before its results are added in, in the same order as
+     * evaluate(double) does
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param out where the results go
+     * @param outOffset index in out where the first result is stored
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, int xOffset, double[] out, int outOffset, int length) {
+        double[] block = new double[Math.min(BLOCK_SIZE, length)];
+        for (int start = 0; start < length; start += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, length - start);
+            int o = outOffset + start;
+            Arrays.fill(out, o, o + n, 0);
+            for (MathFunction temp : super.terms) {
+                temp.evaluate(xs, xOffset + start, block, 0, n);
+                for (int i = 0; i < n; i++) {
+                    out[o + i] += block[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at once
+     * @param x the value of the independent variable
+     * @return f(x) paired with f'(x); both are sums over the terms
+     */
+    @Override
+    public Dual evaluateWithDerivative(double x) {
+        double value = 0;
+        double derivative = 0;
+        for (MathFunction temp : super.terms) {
+            Dual d = temp.evaluateWithDerivative(x);
+            value += d.getValue();
+            derivative += d.getDerivative();
+        }
+        return new Dual(value, derivative);
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at a run
+     * of points. The points are handled in blocks
+     * of BLOCK_SIZE, like evaluate
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param values where the values of the function go
+     * @param derivatives where the values of the derivative go
+     * @param outOffset index in values and derivatives of the first result
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluateWithDerivative(double[] xs, int xOffset, double[] values, double[] derivatives,
+                                       int outOffset, int length) {
+        int size = Math.min(BLOCK_SIZE, length);
+        double[] blockValues = new double[size];
+        double[] blockDerivs = new double[size];
+        for (int start = 0; start < length; start += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, length - start);
+            int o = outOffset + start;
+            Arrays.fill(values, o, o + n, 0);
+            Arrays.fill(derivatives, o, o + n, 0);
+            for (MathFunction temp : super.terms) {
+                temp.evaluateWithDerivative(xs, xOffset + start, blockValues, blockDerivs, 0, n);
+                for (int i = 0; i < n; i++) {
+                    values[o + i] += blockValues[i];
+                    derivatives[o + i] += blockDerivs[i];
+                }
+            }
+        }
+    }
+
     /**
      * The integral of a sum of terms is the sum of integrals of the terms
      * @param lower the starting point of the integral's interval
@@ -98,27 +176,23 @@ public class Sum extends AbstractFunction{
     }
 
     /**
-     * Return a string of the sum in infix notation, with parentheses
-     * @return the textual representation of this function
+     * Write the sum in infix notation, with parentheses
+     * @param out where the text goes
+     * @throws IOException if out does
      */
-    public String toString(){
-        String add = "";
-        add += "( ";
-        int i = 0;
+    public void writeTo(Appendable out) throws IOException {
         if(super.numChildren() == 1){
-            add = "";
-            return add + super.get(0);
+            super.terms[0].writeTo(out);
+            return;
         }
-        else {
-            for (MathFunction term : super.terms) {
-                add += super.get(i);
-                i += 1;
-                if(i  < super.numChildren()){
-                    add += " + ";
-                }
+        out.append("( ");
+        for(int i = 0; i < super.numChildren(); i++){
+            if(i > 0){
+                out.append(" + ");
             }
+            super.terms[i].writeTo(out);
         }
-        return add + " )";
+        out.append(" )");
     }
 
 }
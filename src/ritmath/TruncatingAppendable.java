@@ -0,0 +1,87 @@
+package ritmath;
+
+import java.io.IOException;
+
+/**
+ * An Appendable that passes text on until a number of characters has
+ * been written, and then stops the writer by throwing an exception
+ *
+ * @author Key'Mon Jenkins
+ */
+class TruncatingAppendable implements Appendable {
+
+    /**
+     * Thrown once the limit is reached. Only used to unwind out of the
+     * function being written, so it carries no stack trace and one
+     * instance serves every writer
+     */
+    private static final class Full extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private Full() {
+            super("limit reached");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /** the only instance of Full */
+    private static final Full FULL = new Full();
+
+    private final Appendable out;
+    private long remaining;
+    private boolean full;
+
+    /**
+     * Limit what is written to an Appendable
+     * @param out where the text goes
+     * @param limit how many characters may be written
+     */
+    TruncatingAppendable(Appendable out, long limit) {
+        this.out = out;
+        this.remaining = Math.max(limit, 0);
+    }
+
+    /**
+     * Has text been refused because the limit was reached?
+     * @return true once writing has been cut off
+     */
+    boolean isFull() {
+        return full;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        CharSequence text = csq == null ? "null" : csq;
+        return append(text, 0, text.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        CharSequence text = csq == null ? "null" : csq;
+        int n = end - start;
+        if (n <= remaining) {
+            out.append(text, start, end);
+            remaining -= n;
+            return this;
+        }
+        out.append(text, start, start + (int) remaining);
+        remaining = 0;
+        full = true;
+        throw FULL;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        if (remaining == 0) {
+            full = true;
+            throw FULL;
+        }
+        out.append(c);
+        remaining--;
+        return this;
+    }
+}
@@ -0,0 +1,162 @@
+package ritmath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates a function at equally spaced points. The tree is walked once
+ * per block of points, the way the batch evaluate methods do it, except
+ * that a sine or cosine whose argument is affine in x, slope * x +
+ * intercept, is not computed with Math.sin or Math.cos at every point.
+ * Its argument grows by the same step d = slope * h from one point to
+ * the next, so its value is carried along by rotating the pair
+ * (sin, cos) through the angle d:
+ * <pre>
+ *   sin( t + d ) = sin( t ) cos( d ) + cos( t ) sin( d )
+ *   cos( t + d ) = cos( t ) cos( d ) - sin( t ) sin( d )
+ * </pre>
+ * which is four multiplications and two additions. Rounding makes the
+ * rotated values drift slowly, so they are computed afresh with Math.sin
+ * and Math.cos every ANCHOR_INTERVAL points, and at the last point.
+ * Accuracy: the rotated values differ from Math.sin and Math.cos of the
+ * argument by at most about ANCHOR_INTERVAL * 4 * 2^-53, which is 3e-14,
+ * plus twice the rounding error of the argument itself, 2^-52 * |t|. The
+ * second part is there in the direct computation too, since t is rounded
+ * before Math.sin sees it, but the two paths round differently: where
+ * |t| reaches 100 the results agree to about 3e-14, where it reaches 1e4
+ * to about 3e-12 and where it reaches 1e6 to about 2e-10. Every other
+ * node gives exactly the value evaluate(double) gives.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class UniformSampler {
+
+    /** how many points apart the rotated values are recomputed directly */
+    public static final int ANCHOR_INTERVAL = 64;
+
+    /** the distance between points */
+    private final double step;
+
+    /** the index of the last point, which is b rather than a + last * step */
+    private final int last;
+
+    /** the points of the current block */
+    private final double[] xs = new double[AbstractFunction.BLOCK_SIZE];
+
+    /** one scratch block per level of the tree */
+    private final List<double[]> scratch = new ArrayList<>();
+
+    private UniformSampler(double step, int last) {
+        this.step = step;
+        this.last = last;
+    }
+
+    /**
+     * Evaluate a function at n equally spaced points from a to b:
+     * out[i] = f(a + i * step) with step = (b - a) / (n - 1), except that
+     * the last point is b itself, which a + (n - 1) * step can miss by a
+     * rounding error; out[0] = f(a) if n is 1
+     * @param f the function
+     * @param a the first point
+     * @param b the last point
+     * @param n how many points
+     * @param out where the values go, from index 0
+     * @throws IllegalArgumentException if n is negative or out is shorter
+     * than n
+     */
+    public static void sampleUniform(MathFunction f, double a, double b, int n, double[] out) {
+        if (n < 0 || out.length < n) {
+            throw new IllegalArgumentException("cannot put " + n + " samples in " + out.length);
+        }
+        double step = n > 1 ? (b - a) / (n - 1) : 0;
+        UniformSampler sampler = new UniformSampler(step, n - 1);
+        for (int start = 0; start < n; start += AbstractFunction.BLOCK_SIZE) {
+            int length = Math.min(AbstractFunction.BLOCK_SIZE, n - start);
+            for (int i = 0; i < length; i++) {
+                sampler.xs[i] = a + (start + i) * step;
+            }
+            if (start + length == n && n > 1) {
+                sampler.xs[length - 1] = b;
+            }
+            sampler.sample(f, start, length, out, start, 0);
+        }
+    }
+
+    private double[] scratch(int level) {
+        while (scratch.size() <= level) {
+            scratch.add(new double[AbstractFunction.BLOCK_SIZE]);
+        }
+        return scratch.get(level);
+    }
+
+    /**
+     * Evaluate f at the points of the current block
+     * @param f the function
+     * @param start the index of the block's first point in the whole grid
+     * @param length how many points are in the block
+     * @param out where the values go
+     * @param offset index in out of the first value
+     * @param level how deep f is in the tree, to pick a scratch block
+     */
+    private void sample(MathFunction f, int start, int length, double[] out, int offset, int level) {
+        if (f instanceof Variable) {
+            System.arraycopy(xs, 0, out, offset, length);
+        } else if (f instanceof Constant) {
+            Arrays.fill(out, offset, offset + length, f.evaluate(0));
+        } else if (f instanceof Sum || f instanceof Product) {
+            AbstractFunction node = (AbstractFunction) f;
+            boolean sum = f instanceof Sum;
+            double[] block = scratch(level);
+            Arrays.fill(out, offset, offset + length, sum ? 0 : 1);
+            for (int c = 0; c < node.numChildren(); c++) {
+                sample(node.get(c), start, length, block, 0, level + 1);
+                for (int i = 0; i < length; i++) {
+                    if (sum) {
+                        out[offset + i] += block[i];
+                    } else {
+                        out[offset + i] *= block[i];
+                    }
+                }
+            }
+        } else if (f instanceof Sine || f instanceof Cosine) {
+            boolean sine = f instanceof Sine;
+            MathFunction arg = ((AbstractFunction) f).get(0);
+            Affine affine = Affine.of(arg);
+            if (affine != null && affine.slope != 0) {
+                rotate(affine, sine, start, length, out, offset);
+            } else {
+                sample(arg, start, length, out, offset, level + 1);
+                for (int i = offset; i < offset + length; i++) {
+                    out[i] = sine ? Math.sin(out[i]) : Math.cos(out[i]);
+                }
+            }
+        } else {
+            f.evaluate(xs, 0, out, offset, length);
+        }
+    }
+
+    /**
+     * Fill in sin or cos of slope * x + intercept at the points of the
+     * current block by the rotation recurrence
+     */
+    private void rotate(Affine affine, boolean sine, int start, int length, double[] out, int offset) {
+        double d = affine.slope * step;
+        double sinD = Math.sin(d);
+        double cosD = Math.cos(d);
+        double s = 0;
+        double c = 0;
+        for (int i = 0; i < length; i++) {
+            if ((start + i) % ANCHOR_INTERVAL == 0 || i == 0 || start + i == last) {
+                double t = affine.slope * xs[i] + affine.intercept;
+                s = Math.sin(t);
+                c = Math.cos(t);
+            } else {
+                double next = s * cosD + c * sinD;
+                c = c * cosD - s * sinD;
+                s = next;
+            }
+            out[offset + i] = sine ? s : c;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package ritmath;
 
+import java.io.IOException;
+import java.util.Arrays;
+
 /**
  * A singleton class used to represent the independent variable "x"
  *
@@ -27,12 +30,21 @@ public class Variable extends AbstractFunction{
     }
 
     /**
-     * Create a new function that is the derivative of this one.
+     * The structural information about the variable
+     * @return a leaf that is not constant
+     */
+    @Override
+    protected NodeInfo computeInfo(){
+        return NodeInfo.leaf(false, structuralHash(), 1);
+    }
+
+    /**
+     * Build the function that is the derivative of this one.
      * The derivative of x wrt x is 1.
      * @return df(x)/dx
      */
-    public MathFunction derivative() {
-        return new Constant(1);
+    protected MathFunction computeDerivative() {
+        return FunctionFactory.constant(1);
     }
 
     /**
@@ -44,6 +56,48 @@ public class Variable extends AbstractFunction{
         return x;
     }
 
+    /**
+     * Compute the value of this function at a run of points. The results
+     * are just a copy of the points
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param out where the results go
+     * @param outOffset index in out where the first result is stored
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, int xOffset, double[] out, int outOffset, int length) {
+        System.arraycopy(xs, xOffset, out, outOffset, length);
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at once
+     * @param x the value of the independent variable
+     * @return f(x) paired with f'(x); the derivative is 1
+     */
+    @Override
+    public Dual evaluateWithDerivative(double x) {
+        return new Dual(x, 1);
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at a run
+     * of points. The values are a copy of the points and
+     * every derivative is 1
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param values where the values of the function go
+     * @param derivatives where the values of the derivative go
+     * @param outOffset index in values and derivatives of the first result
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluateWithDerivative(double[] xs, int xOffset, double[] values, double[] derivatives,
+                                       int outOffset, int length) {
+        System.arraycopy(xs, xOffset, values, outOffset, length);
+        Arrays.fill(derivatives, outOffset, outOffset + length, 1);
+    }
+
     /**
      * The integral of xdx is x^2/2 (special case of polynomial)
      * @param lower the starting point of the integral's interval
@@ -66,4 +120,13 @@ public class Variable extends AbstractFunction{
         return x;
     }
 
+    /**
+     * Write the variable's name
+     * @param out where the text goes
+     * @throws IOException if out does
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append(x);
+    }
+
 }
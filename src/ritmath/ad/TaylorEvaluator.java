@@ -0,0 +1,164 @@
+package ritmath.ad;
+
+import ritmath.AbstractFunction;
+import ritmath.Constant;
+import ritmath.Cosine;
+import ritmath.MathFunction;
+import ritmath.Polynomial;
+import ritmath.Product;
+import ritmath.Sine;
+import ritmath.Sum;
+import ritmath.Variable;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Computes Taylor coefficients of a function by truncated power series
+ * arithmetic. Every node of the tree is turned into the series of its
+ * value around the expansion point, from the leaves up: sums add series,
+ * products multiply them (a truncated Cauchy product), and sine and
+ * cosine of a series are found together with the recurrences that come
+ * from s' = c u' and c' = -s u'. Each node costs O(order^2) and no
+ * derivative functions are built. A node shared by several parents is
+ * expanded once.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class TaylorEvaluator {
+
+    private final double x0;
+    private final int order;
+    private final Map<MathFunction, double[]> done = new IdentityHashMap<>();
+
+    private TaylorEvaluator(double x0, int order) {
+        this.x0 = x0;
+        this.order = order;
+    }
+
+    /**
+     * Find the Taylor coefficients of a function at a point
+     * @param f the function to expand
+     * @param x0 the expansion point
+     * @param order the highest power of (x - x0) wanted
+     * @return an array c of length order + 1 with c[k] = f^(k)(x0) / k!
+     * @rit.pre order is at least 0
+     */
+    public static double[] coefficients(MathFunction f, double x0, int order) {
+        if (order < 0) {
+            throw new IllegalArgumentException("order must not be negative: " + order);
+        }
+        return new TaylorEvaluator(x0, order).series(f).clone();
+    }
+
+    /**
+     * Find the derivatives of a function at a point
+     * @param f the function to differentiate
+     * @param x0 the point
+     * @param order the highest derivative wanted
+     * @return an array d of length order + 1 with d[k] = f^(k)(x0)
+     */
+    public static double[] derivatives(MathFunction f, double x0, int order) {
+        double[] c = coefficients(f, x0, order);
+        double factorial = 1;
+        for (int k = 1; k <= order; k++) {
+            factorial *= k;
+            c[k] *= factorial;
+        }
+        return c;
+    }
+
+    private double[] series(MathFunction f) {
+        double[] result = done.get(f);
+        if (result == null) {
+            result = expand(f);
+            done.put(f, result);
+        }
+        return result;
+    }
+
+    private double[] expand(MathFunction f) {
+        double[] result = new double[order + 1];
+        if (f instanceof Constant) {
+            result[0] = f.evaluate(0);
+        } else if (f instanceof Variable) {
+            result[0] = x0;
+            if (order > 0) {
+                result[1] = 1;
+            }
+        } else if (f instanceof Sum) {
+            AbstractFunction sum = (AbstractFunction) f;
+            for (int i = 0; i < sum.numChildren(); i++) {
+                double[] term = series(sum.get(i));
+                for (int k = 0; k <= order; k++) {
+                    result[k] += term[k];
+                }
+            }
+        } else if (f instanceof Product) {
+            AbstractFunction product = (AbstractFunction) f;
+            result[0] = 1;
+            for (int i = 0; i < product.numChildren(); i++) {
+                multiply(result, series(product.get(i)));
+            }
+        } else if (f instanceof Polynomial) {
+            // Horner's scheme, with x replaced by the series x0 + t
+            Polynomial poly = (Polynomial) f;
+            for (int k = poly.degree(); k >= 0; k--) {
+                for (int j = order; j > 0; j--) {
+                    result[j] = result[j] * x0 + result[j - 1];
+                }
+                result[0] = result[0] * x0 + poly.coefficient(k);
+            }
+        } else if (f instanceof Sine || f instanceof Cosine) {
+            double[] u = series(((AbstractFunction) f).get(0));
+            double[] s = new double[order + 1];
+            double[] c = new double[order + 1];
+            sineCosine(u, s, c);
+            return f instanceof Sine ? s : c;
+        } else {
+            // not a node we know: fall back to its derivative functions
+            MathFunction d = f;
+            double factorial = 1;
+            for (int k = 0; k <= order; k++) {
+                if (k > 0) {
+                    d = d.derivative();
+                    factorial *= k;
+                }
+                result[k] = d.evaluate(x0) / factorial;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * a = a * b, truncated to the order, computed from the top down
+     * so that a can be overwritten in place
+     */
+    private void multiply(double[] a, double[] b) {
+        for (int k = order; k >= 0; k--) {
+            double sum = 0;
+            for (int j = 0; j <= k; j++) {
+                sum += a[j] * b[k - j];
+            }
+            a[k] = sum;
+        }
+    }
+
+    /**
+     * Fill s and c with the series of sin(u) and cos(u)
+     */
+    private void sineCosine(double[] u, double[] s, double[] c) {
+        s[0] = Math.sin(u[0]);
+        c[0] = Math.cos(u[0]);
+        for (int k = 1; k <= order; k++) {
+            double sk = 0;
+            double ck = 0;
+            for (int j = 1; j <= k; j++) {
+                sk += j * u[j] * c[k - j];
+                ck -= j * u[j] * s[k - j];
+            }
+            s[k] = sk / k;
+            c[k] = ck / k;
+        }
+    }
+}
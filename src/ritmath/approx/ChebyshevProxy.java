@@ -0,0 +1,429 @@
+package ritmath.approx;
+
+import ritmath.MathFunction;
+import ritmath.NodeInfo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A polynomial stand-in for a function on an interval. fit samples the
+ * function at Chebyshev points, turns the samples into the coefficients
+ * of a Chebyshev series, and doubles the number of points until the
+ * series' tail is below the tolerance and the series matches the
+ * function, within the tolerance, halfway between the points. If no
+ * series of degree MAX_DEGREE or less does, the interval is cut in half
+ * and each half is fitted the same way, so the proxy may be made of
+ * several pieces.
+ * A proxy is evaluated with Clenshaw's recurrence, about two multiplies
+ * and three additions per degree, however big the original tree was.
+ * Its derivative and integral are those of the polynomials, found from
+ * the coefficients in one pass each; the derivative is a proxy too, but
+ * it is only as close to the true derivative as differentiating the
+ * polynomials allows, which is usually a few digits worse than the
+ * tolerance. A tolerance smaller than the rounding error of the values,
+ * 64 units in the last place of the largest value on a piece, is raised
+ * to that. Outside the interval the end pieces are extended, which is
+ * not accurate.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class ChebyshevProxy implements MathFunction {
+
+    /** the first degree tried on each piece */
+    public static final int MIN_DEGREE = 16;
+
+    /** the highest degree a piece may have before it is split */
+    public static final int MAX_DEGREE = 256;
+
+    /**
+     * the smallest tolerance used on a piece, relative to the largest
+     * value of the function there: the values themselves are not more
+     * accurate than that
+     */
+    private static final double NOISE = 64 * Math.ulp(1.0);
+
+    /** pieces are not made narrower than this fraction of the interval */
+    private static final double MIN_WIDTH = 0x1p-30;
+
+    /** piece i covers breaks[i] to breaks[i + 1] */
+    private final double[] breaks;
+
+    /**
+     * coefficients[i][k] multiplies T_k(t) on piece i, where t runs from
+     * -1 to 1 across the piece
+     */
+    private final double[][] coefficients;
+
+    /** how many times the original function was evaluated by fit */
+    private final long fitEvaluations;
+
+    /** the derivative, once it has been asked for */
+    private volatile ChebyshevProxy derivative;
+
+    private ChebyshevProxy(double[] breaks, double[][] coefficients, long fitEvaluations) {
+        this.breaks = breaks;
+        this.coefficients = coefficients;
+        this.fitEvaluations = fitEvaluations;
+    }
+
+    /**
+     * Build a proxy for a function on an interval
+     * @param f the function
+     * @param a one end of the interval
+     * @param b the other end of the interval
+     * @param tol the largest difference from f that is acceptable
+     *            anywhere in the interval, as estimated by sampling
+     * @return a proxy that differs from f by at most about tol between
+     * a and b
+     * @throws IllegalArgumentException if the interval is empty or not
+     * finite, tol is not positive, or f cannot be fitted; for example
+     * because it is not finite somewhere in the interval
+     */
+    public static ChebyshevProxy fit(MathFunction f, double a, double b, double tol) {
+        double lower = Math.min(a, b);
+        double upper = Math.max(a, b);
+        if (!(lower < upper) || Double.isInfinite(upper - lower)) {
+            throw new IllegalArgumentException("bad interval [" + a + ", " + b + "]");
+        }
+        if (!(tol > 0)) {
+            throw new IllegalArgumentException("tolerance must be positive: " + tol);
+        }
+        Fitter fitter = new Fitter(f, tol, (upper - lower) * MIN_WIDTH);
+        fitter.fit(lower, upper);
+        double[] breaks = new double[fitter.pieces.size() + 1];
+        breaks[0] = lower;
+        for (int i = 0; i < fitter.ends.size(); i++) {
+            breaks[i + 1] = fitter.ends.get(i);
+        }
+        return new ChebyshevProxy(breaks, fitter.pieces.toArray(new double[0][]), fitter.evaluations);
+    }
+
+    /**
+     * Fits the pieces from left to right
+     */
+    private static final class Fitter {
+        final MathFunction f;
+        final double tol;
+        final double minWidth;
+        final List<double[]> pieces = new ArrayList<>();
+        final List<Double> ends = new ArrayList<>();
+        long evaluations;
+
+        Fitter(MathFunction f, double tol, double minWidth) {
+            this.f = f;
+            this.tol = tol;
+            this.minWidth = minWidth;
+        }
+
+        void fit(double lower, double upper) {
+            double[] c = null;
+            for (int n = MIN_DEGREE; n <= MAX_DEGREE && c == null; n *= 2) {
+                c = tryDegree(lower, upper, n);
+            }
+            if (c != null) {
+                pieces.add(c);
+                ends.add(upper);
+                return;
+            }
+            if (upper - lower < minWidth) {
+                throw new IllegalArgumentException("cannot fit to " + tol + " near " + lower);
+            }
+            double middle = lower + (upper - lower) / 2;
+            fit(lower, middle);
+            fit(middle, upper);
+        }
+
+        /**
+         * Fit a series of degree n on one piece
+         * @return the coefficients, with the negligible tail cut off, or
+         * null if degree n is not enough
+         */
+        double[] tryDegree(double lower, double upper, int n) {
+            double[] xs = new double[n + 1];
+            for (int j = 0; j <= n; j++) {
+                xs[j] = toX(Math.cos(Math.PI * j / n), lower, upper);
+            }
+            double[] values = new double[n + 1];
+            f.evaluate(xs, values);
+            evaluations += n + 1;
+            double scale = 0;
+            for (double v : values) {
+                if (!Double.isFinite(v)) {
+                    throw new IllegalArgumentException("not finite near " + lower);
+                }
+                scale = Math.max(scale, Math.abs(v));
+            }
+            double tol = Math.max(this.tol, NOISE * scale);
+            double[] c = coefficientsAt(values);
+            int m = n;
+            double dropped = Math.abs(c[n]);
+            while (m > 0 && dropped + Math.abs(c[m - 1]) <= tol / 2) {
+                m--;
+                dropped += Math.abs(c[m]);
+            }
+            // the last three coefficients have to be negligible
+            if (m > n - 3) {
+                return null;
+            }
+            double[] kept = Arrays.copyOf(c, Math.max(m, 1));
+            double[] mids = new double[n];
+            for (int j = 0; j < n; j++) {
+                mids[j] = toX(Math.cos(Math.PI * (j + 0.5) / n), lower, upper);
+            }
+            double[] check = new double[n];
+            f.evaluate(mids, check);
+            evaluations += n;
+            for (int j = 0; j < n; j++) {
+                double t = (2 * mids[j] - lower - upper) / (upper - lower);
+                if (!(Math.abs(clenshaw(kept, t) - check[j]) <= tol)) {
+                    return null;
+                }
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * The coefficients of the series of degree n that matches the values
+     * at the n + 1 Chebyshev extreme points cos(pi j / n)
+     */
+    static double[] coefficientsAt(double[] values) {
+        int n = values.length - 1;
+        double[] cos = new double[2 * n];
+        for (int m = 0; m < 2 * n; m++) {
+            cos[m] = Math.cos(Math.PI * m / n);
+        }
+        double[] c = new double[n + 1];
+        for (int k = 0; k <= n; k++) {
+            double sum = (values[0] + values[n] * cos[(n * k) % (2 * n)]) / 2;
+            for (int j = 1; j < n; j++) {
+                sum += values[j] * cos[(j * k) % (2 * n)];
+            }
+            c[k] = sum * 2 / n;
+        }
+        c[0] /= 2;
+        c[n] /= 2;
+        return c;
+    }
+
+    private static double toX(double t, double lower, double upper) {
+        return lower + (t + 1) * (upper - lower) / 2;
+    }
+
+    /**
+     * Sum a Chebyshev series at t by Clenshaw's recurrence
+     */
+    static double clenshaw(double[] c, double t) {
+        double b1 = 0;
+        double b2 = 0;
+        double twoT = 2 * t;
+        for (int k = c.length - 1; k >= 1; k--) {
+            double b = c[k] + twoT * b1 - b2;
+            b2 = b1;
+            b1 = b;
+        }
+        return c[0] + t * b1 - b2;
+    }
+
+    /**
+     * The index of the piece that is used at x; the end pieces also
+     * cover everything beyond them
+     */
+    private int pieceAt(double x) {
+        int i = Arrays.binarySearch(breaks, x);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return Math.max(0, Math.min(i, coefficients.length - 1));
+    }
+
+    /**
+     * The lower end of the fitted interval
+     * @return a
+     */
+    public double getLower() {
+        return breaks[0];
+    }
+
+    /**
+     * The upper end of the fitted interval
+     * @return b
+     */
+    public double getUpper() {
+        return breaks[breaks.length - 1];
+    }
+
+    /**
+     * How many polynomials the proxy is made of
+     * @return at least 1
+     */
+    public int getPieces() {
+        return coefficients.length;
+    }
+
+    /**
+     * The highest degree of any of the polynomials
+     * @return the degree
+     */
+    public int getDegree() {
+        int degree = 0;
+        for (double[] c : coefficients) {
+            degree = Math.max(degree, c.length - 1);
+        }
+        return degree;
+    }
+
+    /**
+     * How many times the original function was evaluated to build this
+     * proxy
+     * @return the number of evaluations; 0 for a derivative
+     */
+    public long getFitEvaluations() {
+        return fitEvaluations;
+    }
+
+    /**
+     * Compute the value of the proxy
+     * @param x the value of the independent variable
+     * @return the value of the polynomial of the piece containing x
+     */
+    @Override
+    public double evaluate(double x) {
+        int i = pieceAt(x);
+        double lower = breaks[i];
+        double upper = breaks[i + 1];
+        return clenshaw(coefficients[i], (2 * x - lower - upper) / (upper - lower));
+    }
+
+    /**
+     * Is the proxy a constant value?
+     * @return true iff it is one piece of degree 0
+     */
+    @Override
+    public boolean isConstant() {
+        return coefficients.length == 1 && coefficients[0].length == 1;
+    }
+
+    /**
+     * The structural information about a proxy
+     * @return a leaf that costs about two multiplies and three additions
+     * per degree
+     */
+    @Override
+    public NodeInfo info() {
+        return NodeInfo.leaf(isConstant(), hashCode(), 5L * getDegree() + 2);
+    }
+
+    /**
+     * The derivative of every piece's polynomial, from the recurrence
+     * d[k - 1] = d[k + 1] + 2 k c[k]. Built once and then kept
+     * @return a proxy with the same pieces
+     */
+    @Override
+    public MathFunction derivative() {
+        ChebyshevProxy d = derivative;
+        if (d == null) {
+            double[][] dc = new double[coefficients.length][];
+            for (int i = 0; i < coefficients.length; i++) {
+                dc[i] = differentiate(coefficients[i], 2 / (breaks[i + 1] - breaks[i]));
+            }
+            d = new ChebyshevProxy(breaks, dc, 0);
+            derivative = d;
+        }
+        return d;
+    }
+
+    private static double[] differentiate(double[] c, double scale) {
+        int n = c.length - 1;
+        if (n == 0) {
+            return new double[]{0};
+        }
+        double[] d = new double[n];
+        double next = 0;
+        double nextNext = 0;
+        for (int k = n; k >= 1; k--) {
+            double dk = nextNext + 2 * k * c[k];
+            d[k - 1] = dk * scale;
+            nextNext = next;
+            next = dk;
+        }
+        d[0] /= 2;
+        return d;
+    }
+
+    /**
+     * The antiderivative of a series, as a series one degree higher whose
+     * constant term is 0
+     */
+    private static double[] antiderivative(double[] c, double scale) {
+        int n = c.length - 1;
+        double[] a = new double[n + 2];
+        for (int k = 1; k <= n + 1; k++) {
+            double before = k == 1 ? 2 * c[0] : c[k - 1];
+            double after = k + 1 <= n ? c[k + 1] : 0;
+            a[k] = (before - after) / (2 * k) * scale;
+        }
+        return a;
+    }
+
+    /**
+     * Compute the integral of the proxy exactly, piece by piece, from the
+     * antiderivatives of the polynomials
+     * @param lower the starting point of the integral's interval
+     * @param upper the ending point of the integral's interval
+     * @param accuracy not used; the integral has a closed form
+     * @return the integral result as a double
+     */
+    @Override
+    public double integral(double lower, double upper, int accuracy) {
+        if (lower > upper) {
+            return -integral(upper, lower, accuracy);
+        }
+        double total = 0;
+        int first = pieceAt(lower);
+        int last = pieceAt(upper);
+        for (int i = first; i <= last; i++) {
+            double pieceLower = breaks[i];
+            double pieceUpper = breaks[i + 1];
+            double from = i == first ? lower : pieceLower;
+            double to = i == last ? upper : pieceUpper;
+            double[] a = antiderivative(coefficients[i], (pieceUpper - pieceLower) / 2);
+            total += clenshaw(a, (2 * to - pieceLower - pieceUpper) / (pieceUpper - pieceLower))
+                    - clenshaw(a, (2 * from - pieceLower - pieceUpper) / (pieceUpper - pieceLower));
+        }
+        return total;
+    }
+
+    /**
+     * Describe the proxy; it has no exact text form
+     * @param out where the text goes
+     * @throws IOException if out does
+     */
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        out.append("chebyshev( x; ").append(Double.toString(getLower())).append(", ")
+                .append(Double.toString(getUpper())).append("; ")
+                .append(Integer.toString(getPieces())).append(" pieces, degree ")
+                .append(Integer.toString(getDegree())).append(" )");
+    }
+
+    /**
+     * Describe the proxy
+     * @return the textual representation of this proxy
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        try {
+            writeTo(text);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return text.toString();
+    }
+}
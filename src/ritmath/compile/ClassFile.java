@@ -0,0 +1,185 @@
+package ritmath.compile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bare-bones writer for Java class files: just enough of the format
+ * (constant pool, methods with a Code attribute, no branches) to emit
+ * the classes FunctionCompiler generates
+ *
+ * @author Key'Mon Jenkins
+ */
+class ClassFile {
+
+    /** class file version for Java 17 */
+    private static final int MAJOR_VERSION = 61;
+
+    private static final int TAG_UTF8 = 1;
+    private static final int TAG_INTEGER = 3;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_CLASS = 7;
+    private static final int TAG_FIELD = 9;
+    private static final int TAG_METHOD = 10;
+    private static final int TAG_INTERFACE_METHOD = 11;
+    private static final int TAG_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private final List<byte[]> methods = new ArrayList<>();
+    private final int thisClass;
+    private final int superClass;
+
+    /**
+     * Start a final class with no interfaces of its own
+     * @param name internal name of the class, e.g. "a/b/C"
+     * @param superName internal name of its superclass
+     */
+    ClassFile(String name, String superName) {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+    }
+
+    /**
+     * Find or add a constant pool entry
+     * @param key unique description of the entry, used to share it
+     * @param tag the constant pool tag
+     * @param body the bytes that follow the tag
+     * @param slots how many pool slots the entry takes (2 for doubles)
+     * @return the entry's index in the pool
+     */
+    private int entry(String key, int tag, byte[] body, int slots) {
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            index = poolCount;
+            poolCount += slots;
+            poolIndex.put(key, index);
+            poolBytes.write(tag);
+            poolBytes.writeBytes(body);
+        }
+        return index;
+    }
+
+    private static byte[] u2s(int... values) {
+        byte[] out = new byte[values.length * 2];
+        for (int i = 0; i < values.length; i++) {
+            out[2 * i] = (byte) (values[i] >> 8);
+            out[2 * i + 1] = (byte) values[i];
+        }
+        return out;
+    }
+
+    int utf8(String s) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            new DataOutputStream(body).writeUTF(s);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return entry("U" + s, TAG_UTF8, body.toByteArray(), 1);
+    }
+
+    int classRef(String name) {
+        return entry("C" + name, TAG_CLASS, u2s(utf8(name)), 1);
+    }
+
+    int integer(int value) {
+        return entry("I" + value, TAG_INTEGER, u2s(value >>> 16, value & 0xffff), 1);
+    }
+
+    int doubleConst(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        byte[] body = new byte[8];
+        for (int i = 0; i < 8; i++) {
+            body[i] = (byte) (bits >>> (56 - 8 * i));
+        }
+        return entry("D" + bits, TAG_DOUBLE, body, 2);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        return entry("N" + name + ":" + descriptor, TAG_NAME_AND_TYPE,
+                u2s(utf8(name), utf8(descriptor)), 1);
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return entry("F" + owner + "." + name + ":" + descriptor, TAG_FIELD,
+                u2s(classRef(owner), nameAndType(name, descriptor)), 1);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return entry("M" + owner + "." + name + descriptor, TAG_METHOD,
+                u2s(classRef(owner), nameAndType(name, descriptor)), 1);
+    }
+
+    int interfaceMethodRef(String owner, String name, String descriptor) {
+        return entry("J" + owner + "." + name + descriptor, TAG_INTERFACE_METHOD,
+                u2s(classRef(owner), nameAndType(name, descriptor)), 1);
+    }
+
+    /**
+     * Add a method whose body is straight-line bytecode
+     * @param access the access flags
+     * @param name the method name
+     * @param descriptor the method descriptor
+     * @param code the bytecode, which must not branch
+     * @param maxStack deepest operand stack the code reaches, in slots
+     * @param maxLocals number of local variable slots, parameters included
+     */
+    void method(int access, String name, String descriptor, byte[] code, int maxStack, int maxLocals) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1);
+            out.writeShort(utf8("Code"));
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0);
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    /**
+     * Produce the finished class file
+     * @return the bytes of the class file
+     */
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(poolCount);
+            poolBytes.writeTo(out);
+            out.writeShort(0x0001 | 0x0010 | 0x0020);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(0);
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
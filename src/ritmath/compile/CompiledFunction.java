@@ -0,0 +1,174 @@
+package ritmath.compile;
+
+import ritmath.Dual;
+import ritmath.MathFunction;
+import ritmath.NodeInfo;
+
+import java.io.IOException;
+
+/**
+ * The superclass of every class generated by FunctionCompiler. The
+ * generated subclass supplies apply(double) as one straight-line method;
+ * everything else is answered by the function tree it was compiled from
+ *
+ * @author Key'Mon Jenkins
+ */
+public abstract class CompiledFunction implements MathFunction {
+
+    /** the tree this function was compiled from */
+    private final MathFunction source;
+
+    /**
+     * Nodes the compiler did not know how to inline. The generated code
+     * calls their evaluate method, by index, at the point they appear
+     */
+    protected final MathFunction[] externals;
+
+    /**
+     * The values of the constants and polynomial coefficients in the
+     * tree. The generated code loads them from here, by index, so that
+     * trees of the same shape share one generated class
+     */
+    protected final double[] constants;
+
+    /**
+     * Create the compiled form of a function
+     * @param source the tree the generated code was produced from
+     * @param externals the nodes the generated code calls out to
+     * @param constants the constants the generated code loads
+     */
+    protected CompiledFunction(MathFunction source, MathFunction[] externals, double[] constants) {
+        this.source = source;
+        this.externals = externals;
+        this.constants = constants;
+    }
+
+    /**
+     * Compute the value of the compiled function
+     * @param x the value of the independent variable
+     * @return the same value source.evaluate(x) gives
+     */
+    public abstract double apply(double x);
+
+    /**
+     * The tree this function was compiled from
+     * @return the original function
+     */
+    public MathFunction getSource() {
+        return source;
+    }
+
+    /**
+     * Compute the value of this function
+     * @param x the value of the independent variable
+     * @return the evaluation of the function at the given x
+     */
+    @Override
+    public double evaluate(double x) {
+        return apply(x);
+    }
+
+    /**
+     * Compute the value of this function at a run of points with one
+     * call of the generated code per point
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param out where the results go
+     * @param outOffset index in out where the first result is stored
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, int xOffset, double[] out, int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = apply(xs[xOffset + i]);
+        }
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at once
+     * @param x the value of the independent variable
+     * @return the source function's answer
+     */
+    @Override
+    public Dual evaluateWithDerivative(double x) {
+        return source.evaluateWithDerivative(x);
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at a run
+     * of points, using the source function's batch form
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param values where the values of the function go
+     * @param derivatives where the values of the derivative go
+     * @param outOffset index in values and derivatives of the first result
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluateWithDerivative(double[] xs, int xOffset, double[] values, double[] derivatives,
+                                       int outOffset, int length) {
+        source.evaluateWithDerivative(xs, xOffset, values, derivatives, outOffset, length);
+    }
+
+    /**
+     * Is this function a constant value?
+     * @return the source function's answer
+     */
+    @Override
+    public boolean isConstant() {
+        return source.isConstant();
+    }
+
+    /**
+     * Facts about the structure of the source function
+     * @return the source function's answer
+     */
+    @Override
+    public NodeInfo info() {
+        return source.info();
+    }
+
+    /**
+     * Create a new function that is the derivative of this one. The
+     * derivative is not compiled; pass it to FunctionCompiler if needed
+     * @return the source function's derivative
+     */
+    @Override
+    public MathFunction derivative() {
+        return source.derivative();
+    }
+
+    /**
+     * Compute the integral of this function. The source function is used
+     * so that closed-form integrals of its nodes are kept
+     * @param lower the starting point of the integral's interval
+     * @param upper the ending point of the integral's interval
+     * @param accuracy the number of sections into which the interval
+     *                 should be divided for the calculation (may not
+     *                 be used if the function has a closed form integral)
+     * @return the integral result as a double
+     */
+    @Override
+    public double integral(double lower, double upper, int accuracy) {
+        return source.integral(lower, upper, accuracy);
+    }
+
+    /**
+     * Display the function the same way its source does
+     * @return the textual representation of this function
+     */
+    @Override
+    public String toString() {
+        return source.toString();
+    }
+
+    /**
+     * Write the function the same way its source does
+     * @param out where the text goes
+     * @throws IOException if out does
+     */
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        source.writeTo(out);
+    }
+}
@@ -0,0 +1,451 @@
+package ritmath.compile;
+
+import ritmath.AbstractFunction;
+import ritmath.Constant;
+import ritmath.Cosine;
+import ritmath.MathFunction;
+import ritmath.Polynomial;
+import ritmath.Product;
+import ritmath.Sine;
+import ritmath.Sum;
+import ritmath.Variable;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns a function tree into a hidden class whose apply(double) method
+ * evaluates the whole tree in one straight-line method. Sums and products
+ * become chains of dadd/dmul, sine and cosine become calls to Math.sin and
+ * Math.cos, and a node that is shared by several parents is computed once
+ * and kept in a local variable. Since there are no virtual calls left the
+ * JIT can inline and optimize the expression as a whole.
+ * Generated classes are cached by the shape of the tree (its node types,
+ * polynomial degrees and sharing). Constant values are not part of the
+ * shape: the generated code loads them from an array held by each
+ * instance, so trees that differ only in their constants share a class,
+ * and compiling the same shape again only costs a walk of the tree. The
+ * cache holds at most MAX_CACHED_CLASSES shapes, dropping the one used
+ * least recently, and a dropped class is unloaded once its instances are
+ * gone.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class FunctionCompiler {
+
+    private static final String CLASS_NAME = "ritmath/compile/GeneratedFunction";
+    private static final String SUPER_NAME = "ritmath/compile/CompiledFunction";
+    private static final String FUNCTION = "ritmath/MathFunction";
+    private static final String INIT_DESCRIPTOR =
+            "(Lritmath/MathFunction;[Lritmath/MathFunction;[D)V";
+
+    /** the JVM's limit on the bytecode in one method */
+    private static final int MAX_CODE_LENGTH = 65535;
+
+    /** the most generated classes the cache keeps */
+    public static final int MAX_CACHED_CLASSES = 256;
+
+    /** constructors of the classes generated most recently, by shape */
+    private static final Map<String, MethodHandle> cache = leastRecentlyUsed();
+
+    /** shapes whose code would not fit in one method, most recent ones */
+    private static final Set<String> tooLarge = Collections.newSetFromMap(leastRecentlyUsed());
+
+    private FunctionCompiler() {
+    }
+
+    /**
+     * Compile a function tree
+     * @param f the function to compile
+     * @return a function that evaluates exactly like f, or f itself
+     * if it is too large to compile into a single method
+     */
+    public static MathFunction compile(MathFunction f) {
+        if (f instanceof CompiledFunction) {
+            return f;
+        }
+        Shape shape = new Shape(f);
+        MethodHandle maker = cache.get(shape.key);
+        if (maker == null) {
+            if (tooLarge.contains(shape.key)) {
+                return f;
+            }
+            byte[] bytes = new Emitter(shape).generate();
+            if (bytes == null) {
+                tooLarge.add(shape.key);
+                return f;
+            }
+            maker = define(bytes);
+            MethodHandle previous = cache.putIfAbsent(shape.key, maker);
+            if (previous != null) {
+                maker = previous;
+            }
+        }
+        try {
+            return (MathFunction) maker.invoke(f, shape.externals, shape.constants());
+        } catch (Throwable e) {
+            throw new IllegalStateException("cannot instantiate compiled function", e);
+        }
+    }
+
+    /**
+     * How many distinct shapes have been compiled
+     * @return the number of generated classes held in the cache
+     */
+    public static int cacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * A synchronized map that holds at most MAX_CACHED_CLASSES entries,
+     * dropping the least recently used one to make room
+     */
+    private static <V> Map<String, V> leastRecentlyUsed() {
+        return Collections.synchronizedMap(new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > MAX_CACHED_CLASSES;
+            }
+        });
+    }
+
+    /**
+     * Load generated bytes as a hidden class next to CompiledFunction
+     * @param bytes the class file
+     * @return a handle on the class's constructor
+     */
+    private static MethodHandle define(byte[] bytes) {
+        try {
+            MethodHandles.Lookup lookup =
+                    MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class, MathFunction.class, MathFunction[].class,
+                            double[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot define compiled function", e);
+        }
+    }
+
+    /**
+     * Is this a node the compiler generates code for, rather than
+     * calling out to it?
+     */
+    private static boolean isInlined(MathFunction f) {
+        return f instanceof Constant || f instanceof Variable || f instanceof Sum
+                || f instanceof Product || f instanceof Sine || f instanceof Cosine
+                || f instanceof Polynomial;
+    }
+
+    /**
+     * Does this node compile to a single instruction? Such nodes are
+     * never kept in a local even when they are shared
+     */
+    private static boolean isLeaf(MathFunction f) {
+        return f instanceof Constant || f instanceof Variable;
+    }
+
+    /**
+     * The shape of a tree: a key that identifies the code to generate,
+     * the nodes that must be called rather than inlined, the constants in
+     * the order the code loads them, and how many parents each node has
+     */
+    private static class Shape {
+        final MathFunction root;
+        final Map<MathFunction, Integer> uses = new IdentityHashMap<>();
+        final String key;
+        final MathFunction[] externals;
+
+        private final Map<MathFunction, Integer> externalIndex = new IdentityHashMap<>();
+        private final List<MathFunction> externalList = new ArrayList<>();
+        private double[] constants = new double[8];
+        private int constantCount;
+        private final Map<MathFunction, Integer> shared = new IdentityHashMap<>();
+        private final StringBuilder keyBuilder = new StringBuilder();
+
+        Shape(MathFunction root) {
+            this.root = root;
+            count(root);
+            describe(root);
+            key = keyBuilder.toString();
+            externals = externalList.toArray(new MathFunction[0]);
+        }
+
+        private void count(MathFunction f) {
+            Integer n = uses.get(f);
+            uses.put(f, n == null ? 1 : n + 1);
+            if (n == null && isInlined(f) && !isLeaf(f)) {
+                AbstractFunction node = (AbstractFunction) f;
+                for (int i = 0; i < node.numChildren(); i++) {
+                    count(node.get(i));
+                }
+            }
+        }
+
+        int externalIndex(MathFunction f) {
+            return externalIndex.get(f);
+        }
+
+        /**
+         * @return the constants, in the order they appear in the key
+         */
+        double[] constants() {
+            return Arrays.copyOf(constants, constantCount);
+        }
+
+        private void addConstant(double value) {
+            if (constantCount == constants.length) {
+                constants = Arrays.copyOf(constants, 2 * constantCount);
+            }
+            constants[constantCount++] = value;
+        }
+
+        private void describe(MathFunction f) {
+            Integer slot = shared.get(f);
+            if (slot != null) {
+                keyBuilder.append('@').append(slot).append(';');
+                return;
+            }
+            if (!isLeaf(f) && uses.get(f) > 1) {
+                shared.put(f, shared.size());
+                keyBuilder.append('=');
+            }
+            if (f instanceof Constant) {
+                keyBuilder.append('k');
+                addConstant(f.evaluate(0));
+            } else if (f instanceof Variable) {
+                keyBuilder.append('x');
+            } else if (f instanceof Polynomial) {
+                Polynomial poly = (Polynomial) f;
+                keyBuilder.append('p').append(poly.degree()).append(';');
+                for (int k = poly.degree(); k >= 0; k--) {
+                    addConstant(poly.coefficient(k));
+                }
+            } else if (isInlined(f)) {
+                AbstractFunction node = (AbstractFunction) f;
+                keyBuilder.append(f instanceof Sum ? 'S' : f instanceof Product ? 'P'
+                        : f instanceof Sine ? 's' : 'c');
+                keyBuilder.append('(');
+                for (int i = 0; i < node.numChildren(); i++) {
+                    describe(node.get(i));
+                }
+                keyBuilder.append(')');
+            } else {
+                Integer index = externalIndex.get(f);
+                if (index == null) {
+                    index = externalList.size();
+                    externalIndex.put(f, index);
+                    externalList.add(f);
+                }
+                keyBuilder.append('e').append(index).append(';');
+            }
+        }
+    }
+
+    /**
+     * Writes the generated class for one shape
+     */
+    private static class Emitter {
+        private static final int DCONST_0 = 0x0e;
+        private static final int DCONST_1 = 0x0f;
+        private static final int BIPUSH = 0x10;
+        private static final int SIPUSH = 0x11;
+        private static final int LDC_W = 0x13;
+        private static final int DLOAD = 0x18;
+        private static final int DLOAD_1 = 0x27;
+        private static final int ALOAD_0 = 0x2a;
+        private static final int ALOAD_1 = 0x2b;
+        private static final int ALOAD_2 = 0x2c;
+        private static final int ALOAD_3 = 0x2d;
+        private static final int DALOAD = 0x31;
+        private static final int AALOAD = 0x32;
+        private static final int DSTORE = 0x39;
+        private static final int ASTORE_3 = 0x4e;
+        private static final int DUP2 = 0x5c;
+        private static final int DADD = 0x63;
+        private static final int DMUL = 0x6b;
+        private static final int DRETURN = 0xaf;
+        private static final int RETURN = 0xb1;
+        private static final int GETFIELD = 0xb4;
+        private static final int INVOKESPECIAL = 0xb7;
+        private static final int INVOKESTATIC = 0xb8;
+        private static final int INVOKEINTERFACE = 0xb9;
+        private static final int WIDE = 0xc4;
+
+        private final Shape shape;
+        private final ClassFile cf = new ClassFile(CLASS_NAME, SUPER_NAME);
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        private final Map<MathFunction, Integer> locals = new IdentityHashMap<>();
+        private int nextLocal = 4;
+        private int nextConstant;
+        private int stack;
+        private int maxStack;
+
+        Emitter(Shape shape) {
+            this.shape = shape;
+        }
+
+        /**
+         * @return the class file, or null if apply would be too long
+         */
+        byte[] generate() {
+            ByteArrayOutputStream init = new ByteArrayOutputStream();
+            init.write(ALOAD_0);
+            init.write(ALOAD_1);
+            init.write(ALOAD_2);
+            init.write(ALOAD_3);
+            init.write(INVOKESPECIAL);
+            u2(init, cf.methodRef(SUPER_NAME, "<init>", INIT_DESCRIPTOR));
+            init.write(RETURN);
+            cf.method(0x0001, "<init>", INIT_DESCRIPTOR, init.toByteArray(), 4, 4);
+
+            // the constants array is kept in local 3
+            code.write(ALOAD_0);
+            push(1);
+            code.write(GETFIELD);
+            u2(code, cf.fieldRef(SUPER_NAME, "constants", "[D"));
+            code.write(ASTORE_3);
+            stack -= 1;
+            emit(shape.root);
+            code.write(DRETURN);
+            if (code.size() > MAX_CODE_LENGTH || nextLocal > 0xffff) {
+                return null;
+            }
+            cf.method(0x0001 | 0x0010, "apply", "(D)D", code.toByteArray(), maxStack, nextLocal);
+            return cf.toByteArray();
+        }
+
+        private static void u2(ByteArrayOutputStream out, int value) {
+            out.write(value >> 8);
+            out.write(value);
+        }
+
+        private void push(int slots) {
+            stack += slots;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void local(int opcode, int slot) {
+            if (slot > 0xff) {
+                code.write(WIDE);
+                code.write(opcode);
+                u2(code, slot);
+            } else {
+                code.write(opcode);
+                code.write(slot);
+            }
+        }
+
+        /**
+         * Append code that pushes the next value of the constants array,
+         * in the order Shape collected them
+         */
+        private void loadConstant() {
+            code.write(ALOAD_3);
+            push(1);
+            intConstant(nextConstant++);
+            code.write(DALOAD);
+            stack -= 2;
+            push(2);
+        }
+
+        private void intConstant(int value) {
+            if (value <= 5) {
+                code.write(0x03 + value);
+            } else if (value <= Byte.MAX_VALUE) {
+                code.write(BIPUSH);
+                code.write(value);
+            } else if (value <= Short.MAX_VALUE) {
+                code.write(SIPUSH);
+                u2(code, value);
+            } else {
+                code.write(LDC_W);
+                u2(code, cf.integer(value));
+            }
+            push(1);
+        }
+
+        /**
+         * Append code that leaves the value of f on the operand stack
+         */
+        private void emit(MathFunction f) {
+            Integer slot = locals.get(f);
+            if (slot != null) {
+                local(DLOAD, slot);
+                push(2);
+                return;
+            }
+            if (f instanceof Constant) {
+                loadConstant();
+                return;
+            }
+            if (f instanceof Variable) {
+                code.write(DLOAD_1);
+                push(2);
+                return;
+            }
+            if (f instanceof Sum || f instanceof Product) {
+                AbstractFunction node = (AbstractFunction) f;
+                boolean sum = f instanceof Sum;
+                code.write(sum ? DCONST_0 : DCONST_1);
+                push(2);
+                for (int i = 0; i < node.numChildren(); i++) {
+                    emit(node.get(i));
+                    code.write(sum ? DADD : DMUL);
+                    stack -= 2;
+                }
+            } else if (f instanceof Sine || f instanceof Cosine) {
+                emit(((AbstractFunction) f).get(0));
+                code.write(INVOKESTATIC);
+                u2(code, cf.methodRef("java/lang/Math", f instanceof Sine ? "sin" : "cos", "(D)D"));
+            } else if (f instanceof Polynomial) {
+                // Horner's scheme, in the same order as Polynomial.evaluate
+                Polynomial poly = (Polynomial) f;
+                loadConstant();
+                for (int k = poly.degree() - 1; k >= 0; k--) {
+                    code.write(DLOAD_1);
+                    push(2);
+                    code.write(DMUL);
+                    stack -= 2;
+                    loadConstant();
+                    code.write(DADD);
+                    stack -= 2;
+                }
+            } else {
+                code.write(ALOAD_0);
+                push(1);
+                code.write(GETFIELD);
+                u2(code, cf.fieldRef(SUPER_NAME, "externals", "[L" + FUNCTION + ";"));
+                intConstant(shape.externalIndex(f));
+                code.write(AALOAD);
+                stack -= 1;
+                code.write(DLOAD_1);
+                push(2);
+                code.write(INVOKEINTERFACE);
+                u2(code, cf.interfaceMethodRef(FUNCTION, "evaluate", "(D)D"));
+                code.write(3);
+                code.write(0);
+                stack -= 3;
+                push(2);
+                return;
+            }
+            if (shape.uses.get(f) > 1) {
+                code.write(DUP2);
+                push(2);
+                local(DSTORE, nextLocal);
+                stack -= 2;
+                locals.put(f, nextLocal);
+                nextLocal += 2;
+            }
+        }
+    }
+}
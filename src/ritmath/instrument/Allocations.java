@@ -0,0 +1,76 @@
+package ritmath.instrument;
+
+import ritmath.MathFunction;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts of the nodes FunctionFactory builds, by type. Counting is on
+ * only if the system property ritmath.instrument.allocations is true when
+ * the program starts (java -Dritmath.instrument.allocations=true ...);
+ * ENABLED is a constant, so when it is off the JIT compiles the check in
+ * FunctionFactory away.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class Allocations {
+
+    /** whether FunctionFactory calls record */
+    public static final boolean ENABLED = Boolean.getBoolean("ritmath.instrument.allocations");
+
+    private static final Map<String, LongAdder> built = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> reused = new ConcurrentHashMap<>();
+
+    private Allocations() {
+    }
+
+    /**
+     * Count a node FunctionFactory has built. Called by FunctionFactory
+     * when ENABLED is true
+     * @param f the new node
+     * @param replaced true if an equal node already in use is handed out
+     *                 instead of f
+     */
+    public static void record(MathFunction f, boolean replaced) {
+        String type = f.getClass().getSimpleName();
+        built.computeIfAbsent(type, k -> new LongAdder()).increment();
+        if (replaced) {
+            reused.computeIfAbsent(type, k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * The nodes built so far by type
+     * @return a sorted copy of the counts
+     */
+    static Map<String, Long> built() {
+        return copy(built);
+    }
+
+    /**
+     * The nodes built so far that were replaced by an equal node
+     * @return a sorted copy of the counts
+     */
+    static Map<String, Long> reused() {
+        return copy(reused);
+    }
+
+    /**
+     * Forget all the counts
+     */
+    static void reset() {
+        built.clear();
+        reused.clear();
+    }
+
+    private static Map<String, Long> copy(Map<String, LongAdder> counts) {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> e : counts.entrySet()) {
+            result.put(e.getKey(), e.getValue().sum());
+        }
+        return result;
+    }
+}
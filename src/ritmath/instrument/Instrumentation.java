@@ -0,0 +1,232 @@
+package ritmath.instrument;
+
+import ritmath.AbstractFunction;
+import ritmath.MathFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Opt-in counting and timing of function evaluation. instrument(f)
+ * returns a copy of f that evaluates to exactly the same values and
+ * counts, for each of its nodes, the evaluate, derivative and integral
+ * calls made on the subtree rooted there; see InstrumentedFunction.
+ * Functions that are not instrumented are not touched, so they run
+ * exactly as fast as before. snapshot() gathers the counts of all the
+ * instrumented trees still in use, together with FunctionFactory's
+ * allocation counts (see Allocations), and registerMBean() makes the same
+ * numbers available over JMX.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class Instrumentation {
+
+    /** the name the MBean is registered under */
+    public static final String OBJECT_NAME = "ritmath:type=Instrumentation";
+
+    /** the instrumented trees made so far; cleared ones are dropped */
+    private static final List<WeakReference<InstrumentedFunction>> roots = new ArrayList<>();
+
+    private static ObjectName registered;
+
+    private Instrumentation() {
+    }
+
+    /**
+     * Make an instrumented copy of a function. A subtree shared by several
+     * parents gets one instrumented copy, whose counts cover all its uses
+     * @param f the function
+     * @return f itself if it is instrumented already, else a function
+     * that evaluates exactly like f and counts the calls made on it
+     */
+    public static InstrumentedFunction instrument(MathFunction f) {
+        if (f instanceof InstrumentedFunction) {
+            return (InstrumentedFunction) f;
+        }
+        InstrumentedFunction root = wrap(f, new IdentityHashMap<>());
+        synchronized (roots) {
+            roots.removeIf(ref -> ref.get() == null);
+            roots.add(new WeakReference<>(root));
+        }
+        return root;
+    }
+
+    private static InstrumentedFunction wrap(MathFunction f, Map<MathFunction, InstrumentedFunction> done) {
+        InstrumentedFunction wrapped = done.get(f);
+        if (wrapped != null) {
+            return wrapped;
+        }
+        InstrumentedFunction[] children = new InstrumentedFunction[0];
+        if (InstrumentedFunction.isInterior(f)) {
+            AbstractFunction node = (AbstractFunction) f;
+            children = new InstrumentedFunction[node.numChildren()];
+            for (int i = 0; i < children.length; i++) {
+                children[i] = wrap(node.get(i), done);
+            }
+        }
+        wrapped = new InstrumentedFunction(f, children);
+        done.put(f, wrapped);
+        return wrapped;
+    }
+
+    /**
+     * The instrumented trees still in use
+     */
+    private static List<InstrumentedFunction> liveRoots() {
+        List<InstrumentedFunction> live = new ArrayList<>();
+        synchronized (roots) {
+            Iterator<WeakReference<InstrumentedFunction>> it = roots.iterator();
+            while (it.hasNext()) {
+                InstrumentedFunction root = it.next().get();
+                if (root == null) {
+                    it.remove();
+                } else {
+                    live.add(root);
+                }
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Every distinct node of the live instrumented trees
+     */
+    private static List<InstrumentedFunction> liveNodes() {
+        List<InstrumentedFunction> nodes = new ArrayList<>();
+        Map<InstrumentedFunction, Boolean> seen = new IdentityHashMap<>();
+        Deque<InstrumentedFunction> stack = new ArrayDeque<>(liveRoots());
+        while (!stack.isEmpty()) {
+            InstrumentedFunction node = stack.pop();
+            if (seen.put(node, Boolean.TRUE) == null) {
+                nodes.add(node);
+                for (InstrumentedFunction child : node.children()) {
+                    stack.push(child);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * The counts of every instrumented tree still in use, and of
+     * FunctionFactory's allocations
+     * @return the counts as they are now
+     */
+    public static InstrumentationSnapshot snapshot() {
+        List<SubtreeStats> subtrees = new ArrayList<>();
+        Map<String, Long> evaluations = new TreeMap<>();
+        Map<String, Long> derivatives = new TreeMap<>();
+        Map<String, Long> integrals = new TreeMap<>();
+        for (InstrumentedFunction node : liveNodes()) {
+            SubtreeStats s = node.stats();
+            subtrees.add(s);
+            String type = s.getFunction().getClass().getSimpleName();
+            evaluations.merge(type, s.getEvaluations(), Long::sum);
+            derivatives.merge(type, s.getDerivatives(), Long::sum);
+            integrals.merge(type, s.getIntegrals(), Long::sum);
+        }
+        subtrees.sort((a, b) -> Long.compare(b.getEstimatedEvaluateNanos() + b.getIntegralNanos(),
+                a.getEstimatedEvaluateNanos() + a.getIntegralNanos()));
+        return new InstrumentationSnapshot(subtrees, evaluations, derivatives, integrals,
+                Allocations.built(), Allocations.reused());
+    }
+
+    /**
+     * Set every count of the live instrumented trees, and the allocation
+     * counts, back to 0
+     */
+    public static void reset() {
+        for (InstrumentedFunction node : liveNodes()) {
+            node.reset();
+        }
+        Allocations.reset();
+    }
+
+    /**
+     * Register an InstrumentationMXBean with the platform MBean server
+     * under OBJECT_NAME, if that has not been done yet
+     * @return the name it is registered under
+     * @throws IllegalStateException if the server refuses it
+     */
+    public static synchronized ObjectName registerMBean() {
+        if (registered == null) {
+            try {
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(new Bean(), name);
+                }
+                registered = name;
+            } catch (JMException e) {
+                throw new IllegalStateException("cannot register " + OBJECT_NAME, e);
+            }
+        }
+        return registered;
+    }
+
+    /**
+     * Answers the MBean's attributes from snapshots
+     */
+    private static final class Bean implements InstrumentationMXBean {
+
+        @Override
+        public Map<String, Long> getEvaluations() {
+            return snapshot().getEvaluations();
+        }
+
+        @Override
+        public Map<String, Long> getDerivatives() {
+            return snapshot().getDerivatives();
+        }
+
+        @Override
+        public Map<String, Long> getIntegrals() {
+            return snapshot().getIntegrals();
+        }
+
+        @Override
+        public Map<String, Long> getAllocations() {
+            return Allocations.built();
+        }
+
+        @Override
+        public Map<String, Long> getReused() {
+            return Allocations.reused();
+        }
+
+        @Override
+        public List<String> getHottestSubtrees() {
+            List<String> lines = new ArrayList<>();
+            for (SubtreeStats s : snapshot().getHottest(10)) {
+                lines.add(s.toString());
+            }
+            return lines;
+        }
+
+        @Override
+        public int getInstrumentedTrees() {
+            return liveRoots().size();
+        }
+
+        @Override
+        public boolean isAllocationTracking() {
+            return Allocations.ENABLED;
+        }
+
+        @Override
+        public void reset() {
+            Instrumentation.reset();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ritmath.instrument;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The management interface of Instrumentation, registered under
+ * Instrumentation.OBJECT_NAME by Instrumentation.registerMBean. Every
+ * attribute is read from a fresh snapshot
+ *
+ * @author Key'Mon Jenkins
+ */
+public interface InstrumentationMXBean {
+
+    /**
+     * Calls of evaluate by node type
+     * @return counts keyed by simple class name
+     */
+    Map<String, Long> getEvaluations();
+
+    /**
+     * Calls of derivative by node type
+     * @return counts keyed by simple class name
+     */
+    Map<String, Long> getDerivatives();
+
+    /**
+     * Calls of integral by node type
+     * @return counts keyed by simple class name
+     */
+    Map<String, Long> getIntegrals();
+
+    /**
+     * Nodes built by FunctionFactory by type
+     * @return counts keyed by simple class name; empty unless allocation
+     * tracking is on
+     */
+    Map<String, Long> getAllocations();
+
+    /**
+     * Nodes built by FunctionFactory and replaced by an equal one in use
+     * @return counts keyed by simple class name; empty unless allocation
+     * tracking is on
+     */
+    Map<String, Long> getReused();
+
+    /**
+     * The subtrees with the most time, one line each
+     * @return at most ten lines of counts and text
+     */
+    List<String> getHottestSubtrees();
+
+    /**
+     * How many instrumented trees are still in use
+     * @return the number of live roots
+     */
+    int getInstrumentedTrees();
+
+    /**
+     * Is FunctionFactory counting the nodes it builds?
+     * @return true iff the ritmath.instrument.allocations property was
+     * true when the program started
+     */
+    boolean isAllocationTracking();
+
+    /**
+     * Set every count back to 0
+     */
+    void reset();
+}
@@ -0,0 +1,131 @@
+package ritmath.instrument;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The counts of every live instrumented tree, and of FunctionFactory's
+ * allocations, at one moment. Counts per node type add up the counts of
+ * the nodes of that type; a node shared by several trees, or by several
+ * places in one tree, is counted once
+ *
+ * @author Key'Mon Jenkins
+ */
+public class InstrumentationSnapshot {
+
+    /** the counts of every instrumented node, most time first */
+    private final List<SubtreeStats> subtrees;
+
+    /** evaluate calls, by the simple class name of the node */
+    private final Map<String, Long> evaluations;
+
+    /** derivative calls, by the simple class name of the node */
+    private final Map<String, Long> derivatives;
+
+    /** integral calls, by the simple class name of the node */
+    private final Map<String, Long> integrals;
+
+    /** nodes FunctionFactory built, by simple class name */
+    private final Map<String, Long> allocations;
+
+    /** nodes FunctionFactory built and threw away for an equal one */
+    private final Map<String, Long> reused;
+
+    /**
+     * Record the counts
+     * @param subtrees the counts of every instrumented node, most time first
+     * @param evaluations evaluate calls by node type
+     * @param derivatives derivative calls by node type
+     * @param integrals integral calls by node type
+     * @param allocations nodes FunctionFactory built by type
+     * @param reused nodes FunctionFactory replaced with an equal one by type
+     */
+    public InstrumentationSnapshot(List<SubtreeStats> subtrees, Map<String, Long> evaluations,
+                                   Map<String, Long> derivatives, Map<String, Long> integrals,
+                                   Map<String, Long> allocations, Map<String, Long> reused) {
+        this.subtrees = Collections.unmodifiableList(subtrees);
+        this.evaluations = Collections.unmodifiableMap(evaluations);
+        this.derivatives = Collections.unmodifiableMap(derivatives);
+        this.integrals = Collections.unmodifiableMap(integrals);
+        this.allocations = Collections.unmodifiableMap(allocations);
+        this.reused = Collections.unmodifiableMap(reused);
+    }
+
+    /**
+     * The counts of every instrumented node, those with the most
+     * estimated evaluate and integral time first
+     * @return an unmodifiable list
+     */
+    public List<SubtreeStats> getSubtrees() {
+        return subtrees;
+    }
+
+    /**
+     * The counts of the nodes with the most time
+     * @param n how many to return at most
+     * @return the first n of getSubtrees()
+     */
+    public List<SubtreeStats> getHottest(int n) {
+        return subtrees.subList(0, Math.min(n, subtrees.size()));
+    }
+
+    /**
+     * Calls of evaluate and evaluateWithDerivative by node type
+     * @return counts keyed by simple class name, such as "Sum"
+     */
+    public Map<String, Long> getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Calls of derivative by node type
+     * @return counts keyed by simple class name
+     */
+    public Map<String, Long> getDerivatives() {
+        return derivatives;
+    }
+
+    /**
+     * Calls of integral by node type
+     * @return counts keyed by simple class name
+     */
+    public Map<String, Long> getIntegrals() {
+        return integrals;
+    }
+
+    /**
+     * Nodes built by FunctionFactory by type, whether kept or not. Empty
+     * unless allocation tracking is on; see Instrumentation
+     * @return counts keyed by simple class name
+     */
+    public Map<String, Long> getAllocations() {
+        return allocations;
+    }
+
+    /**
+     * Nodes built by FunctionFactory and then thrown away because an
+     * equal node was already in use. Empty unless allocation tracking is on
+     * @return counts keyed by simple class name
+     */
+    public Map<String, Long> getReused() {
+        return reused;
+    }
+
+    /**
+     * Show the counts by type and the ten hottest subtrees
+     * @return the textual representation of this snapshot
+     */
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append("evaluations ").append(evaluations)
+                .append("\nderivatives ").append(derivatives)
+                .append("\nintegrals ").append(integrals)
+                .append("\nallocations ").append(allocations)
+                .append("\nreused ").append(reused);
+        for (SubtreeStats s : getHottest(10)) {
+            text.append("\n  ").append(s);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,273 @@
+package ritmath.instrument;
+
+import ritmath.Cosine;
+import ritmath.Dual;
+import ritmath.MathFunction;
+import ritmath.NodeInfo;
+import ritmath.Product;
+import ritmath.Sine;
+import ritmath.Sum;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One node of an instrumented copy of a function tree. It stands in for
+ * the node it was made from and counts the calls made on it. A sum,
+ * product, sine or cosine is evaluated the same way the original node is
+ * evaluated, in the same order, but through the instrumented copies of
+ * its children, so the results are the same to the last bit and every
+ * subtree's calls are counted. Any other node is a leaf here and is
+ * simply called.
+ * One evaluate call in SAMPLE_PERIOD, chosen at random, is timed; the
+ * time includes the subtree's children, and the counting done for them.
+ * The batch evaluate methods go through evaluate(double) one point at a
+ * time. evaluateWithDerivative and derivative are counted at the node
+ * they are called on and answered by the original node; so is integral,
+ * except that the integral of a sum is the sum of the instrumented
+ * integrals of its terms, as Sum does it.
+ * Use Instrumentation.instrument to make one.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class InstrumentedFunction implements MathFunction {
+
+    /** on average, one evaluate call in this many is timed */
+    public static final int SAMPLE_PERIOD = 256;
+
+    private static final int LEAF = 0;
+    private static final int SUM = 1;
+    private static final int PRODUCT = 2;
+    private static final int SINE = 3;
+    private static final int COSINE = 4;
+
+    private final MathFunction source;
+    private final int kind;
+    private final InstrumentedFunction[] children;
+
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder derivatives = new LongAdder();
+    private final LongAdder integrals = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder sampledNanos = new LongAdder();
+    private final LongAdder integralNanos = new LongAdder();
+
+    /** the instrumented derivative, once it has been asked for */
+    private volatile InstrumentedFunction derivative;
+
+    /**
+     * Stand in for a node
+     * @param source the node
+     * @param children instrumented copies of the node's children, if it
+     *                 is a sum, product, sine or cosine; otherwise empty
+     */
+    InstrumentedFunction(MathFunction source, InstrumentedFunction[] children) {
+        this.source = source;
+        this.children = children;
+        this.kind = kindOf(source);
+    }
+
+    /**
+     * Which nodes are evaluated through their children's instrumented
+     * copies
+     * @param f a node
+     * @return SUM, PRODUCT, SINE or COSINE for those nodes, else LEAF
+     */
+    static int kindOf(MathFunction f) {
+        if (f instanceof Sum) {
+            return SUM;
+        }
+        if (f instanceof Product) {
+            return PRODUCT;
+        }
+        if (f instanceof Sine) {
+            return SINE;
+        }
+        if (f instanceof Cosine) {
+            return COSINE;
+        }
+        return LEAF;
+    }
+
+    /**
+     * Is f evaluated through the instrumented copies of its children?
+     * @param f a node
+     * @return true iff f is a sum, product, sine or cosine
+     */
+    static boolean isInterior(MathFunction f) {
+        return kindOf(f) != LEAF;
+    }
+
+    /**
+     * The node this one stands in for
+     * @return the original node
+     */
+    public MathFunction getSource() {
+        return source;
+    }
+
+    /**
+     * The instrumented copies of this node's children
+     * @return the children, not a copy; empty for a leaf
+     */
+    InstrumentedFunction[] children() {
+        return children;
+    }
+
+    /**
+     * Compute the value of this function, counting the call and now and
+     * then timing it
+     * @param x the value of the independent variable
+     * @return exactly what the original node returns
+     */
+    @Override
+    public double evaluate(double x) {
+        evaluations.increment();
+        if ((ThreadLocalRandom.current().nextInt() & (SAMPLE_PERIOD - 1)) != 0) {
+            return compute(x);
+        }
+        long start = System.nanoTime();
+        double value = compute(x);
+        sampledNanos.add(System.nanoTime() - start);
+        samples.increment();
+        return value;
+    }
+
+    private double compute(double x) {
+        switch (kind) {
+            case SUM: {
+                double sum = 0;
+                for (InstrumentedFunction child : children) {
+                    sum += child.evaluate(x);
+                }
+                return sum;
+            }
+            case PRODUCT: {
+                double product = 1;
+                for (InstrumentedFunction child : children) {
+                    product *= child.evaluate(x);
+                }
+                return product;
+            }
+            case SINE:
+                return Math.sin(children[0].evaluate(x));
+            case COSINE:
+                return Math.cos(children[0].evaluate(x));
+            default:
+                return source.evaluate(x);
+        }
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at once
+     * @param x the value of the independent variable
+     * @return the original node's answer
+     */
+    @Override
+    public Dual evaluateWithDerivative(double x) {
+        evaluations.increment();
+        return source.evaluateWithDerivative(x);
+    }
+
+    /**
+     * Is this function a constant value?
+     * @return the original node's answer
+     */
+    @Override
+    public boolean isConstant() {
+        return source.isConstant();
+    }
+
+    /**
+     * Facts about the structure of the original node
+     * @return the original node's answer
+     */
+    @Override
+    public NodeInfo info() {
+        return source.info();
+    }
+
+    /**
+     * The derivative of the original node, instrumented as well. It is
+     * made the first time it is asked for and handed out again after
+     * that, so its counts keep adding up
+     * @return the instrumented derivative
+     */
+    @Override
+    public MathFunction derivative() {
+        derivatives.increment();
+        InstrumentedFunction d = derivative;
+        if (d == null) {
+            d = Instrumentation.instrument(source.derivative());
+            derivative = d;
+        }
+        return d;
+    }
+
+    /**
+     * Compute the integral of this function, counting and timing the call
+     * @param lower the starting point of the integral's interval
+     * @param upper the ending point of the integral's interval
+     * @param accuracy the number of sections into which the interval
+     *                 should be divided for the calculation (may not
+     *                 be used if the function has a closed form integral)
+     * @return exactly what the original node returns
+     */
+    @Override
+    public double integral(double lower, double upper, int accuracy) {
+        integrals.increment();
+        long start = System.nanoTime();
+        double value;
+        if (kind == SUM) {
+            value = 0;
+            for (InstrumentedFunction child : children) {
+                value += child.integral(lower, upper, accuracy);
+            }
+        } else {
+            value = source.integral(lower, upper, accuracy);
+        }
+        integralNanos.add(System.nanoTime() - start);
+        return value;
+    }
+
+    /**
+     * Display the function the same way the original does
+     * @return the textual representation of this function
+     */
+    @Override
+    public String toString() {
+        return source.toString();
+    }
+
+    /**
+     * Write the function the same way the original does
+     * @param out where the text goes
+     * @throws IOException if out does
+     */
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        source.writeTo(out);
+    }
+
+    /**
+     * Set all of this node's counts back to 0
+     */
+    void reset() {
+        evaluations.reset();
+        derivatives.reset();
+        integrals.reset();
+        samples.reset();
+        sampledNanos.reset();
+        integralNanos.reset();
+    }
+
+    /**
+     * Copy this node's counts
+     * @return the counts as they are now
+     */
+    SubtreeStats stats() {
+        return new SubtreeStats(source, evaluations.sum(), derivatives.sum(), integrals.sum(),
+                samples.sum(), sampledNanos.sum(), integralNanos.sum());
+    }
+}
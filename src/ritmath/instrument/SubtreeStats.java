@@ -0,0 +1,144 @@
+package ritmath.instrument;
+
+import ritmath.MathFunction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The counts kept for one node of an instrumented tree, which cover the
+ * calls made on the subtree rooted there
+ *
+ * @author Key'Mon Jenkins
+ */
+public class SubtreeStats {
+
+    /** how much of the function's text toString shows */
+    private static final int TEXT_LENGTH = 80;
+
+    /** the original node */
+    private final MathFunction function;
+
+    /** calls of evaluate and evaluateWithDerivative */
+    private final long evaluations;
+
+    /** calls of derivative */
+    private final long derivatives;
+
+    /** calls of integral */
+    private final long integrals;
+
+    /** how many evaluate calls were timed */
+    private final long samples;
+
+    /** the total time of the timed evaluate calls, in nanoseconds */
+    private final long sampledNanos;
+
+    /** the total time of all integral calls, in nanoseconds */
+    private final long integralNanos;
+
+    /**
+     * Record the counts of a node
+     * @param function the original node
+     * @param evaluations calls of evaluate and evaluateWithDerivative
+     * @param derivatives calls of derivative
+     * @param integrals calls of integral
+     * @param samples how many evaluate calls were timed
+     * @param sampledNanos the total time of the timed evaluate calls
+     * @param integralNanos the total time of all integral calls
+     */
+    public SubtreeStats(MathFunction function, long evaluations, long derivatives, long integrals,
+                        long samples, long sampledNanos, long integralNanos) {
+        this.function = function;
+        this.evaluations = evaluations;
+        this.derivatives = derivatives;
+        this.integrals = integrals;
+        this.samples = samples;
+        this.sampledNanos = sampledNanos;
+        this.integralNanos = integralNanos;
+    }
+
+    /**
+     * The node these counts are for
+     * @return the original, uninstrumented node
+     */
+    public MathFunction getFunction() {
+        return function;
+    }
+
+    /**
+     * How many times the subtree was evaluated
+     * @return calls of evaluate and evaluateWithDerivative
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * How many times the subtree's derivative was asked for
+     * @return calls of derivative
+     */
+    public long getDerivatives() {
+        return derivatives;
+    }
+
+    /**
+     * How many times the subtree was integrated
+     * @return calls of integral
+     */
+    public long getIntegrals() {
+        return integrals;
+    }
+
+    /**
+     * How many of the evaluate calls were timed
+     * @return the number of samples
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * The total time of the timed evaluate calls
+     * @return nanoseconds
+     */
+    public long getSampledNanos() {
+        return sampledNanos;
+    }
+
+    /**
+     * The total time spent in evaluate, estimated from the timed calls
+     * @return nanoseconds, 0 if no call has been timed
+     */
+    public long getEstimatedEvaluateNanos() {
+        return samples == 0 ? 0 : (long) ((double) sampledNanos / samples * evaluations);
+    }
+
+    /**
+     * The total time of all integral calls
+     * @return nanoseconds
+     */
+    public long getIntegralNanos() {
+        return integralNanos;
+    }
+
+    /**
+     * Show the counts and the start of the function's text
+     * @return the textual representation of these counts
+     */
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(evaluations).append(" evaluations (~")
+                .append(getEstimatedEvaluateNanos() / 1000).append(" us), ")
+                .append(derivatives).append(" derivatives, ")
+                .append(integrals).append(" integrals (")
+                .append(integralNanos / 1000).append(" us): ");
+        try {
+            function.writeTo(text, TEXT_LENGTH);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return text.toString();
+    }
+}
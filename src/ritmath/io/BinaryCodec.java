@@ -0,0 +1,348 @@
+package ritmath.io;
+
+import ritmath.AbstractFunction;
+import ritmath.Constant;
+import ritmath.Cosine;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.Polynomial;
+import ritmath.Product;
+import ritmath.Sine;
+import ritmath.Sum;
+import ritmath.Variable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes functions in a compact binary form. The encoding is
+ * <pre>
+ *   "RITM"  version  count  node...
+ * </pre>
+ * where version is one byte (currently 1), count is the number of nodes
+ * and each node is a tag byte followed by its contents. Every distinct
+ * node is written once, after its children; a child is written as how
+ * many nodes back it was written, so a subtree shared by several parents
+ * costs one small number per extra use. The last node is the function.
+ * Counts and back-references are unsigned variable-length integers, 7
+ * bits per byte with the high bit set on all but the last byte; doubles
+ * are 8 bytes, big-endian.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class BinaryCodec {
+
+    /** the version this class writes, and the only one it reads */
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = ('R' << 24) | ('I' << 16) | ('T' << 8) | 'M';
+
+    /** tag, then the 8-byte value */
+    private static final int CONSTANT = 0;
+    /** tag only */
+    private static final int VARIABLE = 1;
+    /** tag, the number of children, then a back-reference for each */
+    private static final int SUM = 2;
+    /** tag, the number of children, then a back-reference for each */
+    private static final int PRODUCT = 3;
+    /** tag, then a back-reference to the argument */
+    private static final int SINE = 4;
+    /** tag, then a back-reference to the argument */
+    private static final int COSINE = 5;
+    /** tag, the number of coefficients, then each, lowest power first */
+    private static final int POLYNOMIAL = 6;
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * Encode a function
+     * @param f the function to encode
+     * @return its binary form
+     * @throws IllegalArgumentException if f contains a node that is not
+     * a Constant, Variable, Sum, Product, Sine, Cosine or Polynomial
+     */
+    public static byte[] encode(MathFunction f) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            encode(f, out);
+        } catch (IOException e) {
+            // a ByteArrayOutputStream never throws
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode a function onto a stream
+     * @param f the function to encode
+     * @param stream where the binary form goes
+     * @throws IOException if the stream does
+     * @throws IllegalArgumentException if f contains a node that is not
+     * a Constant, Variable, Sum, Product, Sine, Cosine or Polynomial
+     */
+    public static void encode(MathFunction f, OutputStream stream) throws IOException {
+        // Nodes are numbered in the order they are written. Equal nodes get
+        // one number; the cached structural hashes make that cheaper than
+        // looking them up by identity
+        Map<MathFunction, Integer> index = new HashMap<>();
+        Writer out = new Writer();
+        // walk down to the leaves without recursion, so that deep functions
+        // do not overflow the stack, writing each node after its children
+        MathFunction[] path = new MathFunction[16];
+        int[] next = new int[16];
+        int depth = 0;
+        path[0] = f;
+        while (depth >= 0) {
+            MathFunction node = path[depth];
+            int child = next[depth];
+            if (child < childCount(node)) {
+                next[depth]++;
+                MathFunction c = ((AbstractFunction) node).get(child);
+                if (!index.containsKey(c)) {
+                    if (++depth == path.length) {
+                        path = Arrays.copyOf(path, depth * 2);
+                        next = Arrays.copyOf(next, depth * 2);
+                    }
+                    path[depth] = c;
+                    next[depth] = 0;
+                }
+                continue;
+            }
+            depth--;
+            if (index.containsKey(node)) {
+                continue;
+            }
+            int here = index.size();
+            write(node, here, index, out);
+            index.put(node, here);
+        }
+        // the node count goes first, so the nodes are held until it is known
+        Writer header = new Writer();
+        header.int32(MAGIC);
+        header.write(VERSION);
+        header.varint(index.size());
+        header.writeTo(stream);
+        out.writeTo(stream);
+    }
+
+    private static void write(MathFunction node, int here, Map<MathFunction, Integer> index, Writer out) {
+        if (node instanceof Constant) {
+            out.write(CONSTANT);
+            out.float64(node.evaluate(0));
+        } else if (node instanceof Variable) {
+            out.write(VARIABLE);
+        } else if (node instanceof Polynomial) {
+            Polynomial poly = (Polynomial) node;
+            out.write(POLYNOMIAL);
+            out.varint(poly.degree() + 1);
+            for (int k = 0; k <= poly.degree(); k++) {
+                out.float64(poly.coefficient(k));
+            }
+        } else {
+            AbstractFunction parent = (AbstractFunction) node;
+            if (node instanceof Sum || node instanceof Product) {
+                out.write(node instanceof Sum ? SUM : PRODUCT);
+                out.varint(parent.numChildren());
+            } else {
+                out.write(node instanceof Sine ? SINE : COSINE);
+            }
+            for (MathFunction child : parent) {
+                out.varint(here - index.get(child));
+            }
+        }
+    }
+
+    private static int childCount(MathFunction node) {
+        if (node instanceof Constant || node instanceof Variable || node instanceof Polynomial) {
+            return 0;
+        }
+        if (node instanceof Sum || node instanceof Product || node instanceof Sine
+                || node instanceof Cosine) {
+            return ((AbstractFunction) node).numChildren();
+        }
+        throw new IllegalArgumentException("cannot encode " + node.getClass().getName());
+    }
+
+    /**
+     * Decode a function. The buffer's position is moved past the encoding
+     * and its byte order is not changed. The nodes are built with
+     * FunctionFactory, so the result is interned like any other function
+     * @param buffer holds the binary form at its position; a
+     * MappedByteBuffer reads straight from a file
+     * @return the function
+     * @throws IllegalArgumentException if the buffer does not hold a
+     * complete encoding of this version
+     */
+    public static MathFunction decode(ByteBuffer buffer) {
+        ByteBuffer in = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        try {
+            MathFunction f = read(in);
+            buffer.position(buffer.position() + in.position());
+            return f;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("truncated or corrupt encoding", e);
+        }
+    }
+
+    /**
+     * Decode a function
+     * @param bytes the binary form
+     * @return the function
+     * @throws IllegalArgumentException if bytes is not a complete
+     * encoding of this version
+     */
+    public static MathFunction decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Decode a function from a file, by mapping it into memory
+     * @param file a file holding the binary form
+     * @return the function
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a complete
+     * encoding of this version
+     */
+    public static MathFunction decode(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(mapped);
+        }
+    }
+
+    private static MathFunction read(ByteBuffer in) {
+        if (in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("not an encoded function");
+        }
+        int version = in.get() & 0xff;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported version " + version);
+        }
+        // every node takes at least its tag byte
+        int count = count(in, 1, "nodes");
+        if (count == 0) {
+            throw new IllegalArgumentException("no nodes");
+        }
+        MathFunction[] nodes = new MathFunction[count];
+        for (int i = 0; i < count; i++) {
+            int tag = in.get();
+            switch (tag) {
+                case CONSTANT:
+                    nodes[i] = FunctionFactory.constant(in.getDouble());
+                    break;
+                case VARIABLE:
+                    nodes[i] = FunctionFactory.x();
+                    break;
+                case SUM:
+                case PRODUCT: {
+                    // every child takes at least one byte of reference
+                    MathFunction[] children = new MathFunction[count(in, 1, "children")];
+                    for (int c = 0; c < children.length; c++) {
+                        children[c] = reference(in, nodes, i);
+                    }
+                    nodes[i] = tag == SUM ? FunctionFactory.sum(children) : FunctionFactory.product(children);
+                    break;
+                }
+                case SINE:
+                    nodes[i] = FunctionFactory.sine(reference(in, nodes, i));
+                    break;
+                case COSINE:
+                    nodes[i] = FunctionFactory.cosine(reference(in, nodes, i));
+                    break;
+                case POLYNOMIAL: {
+                    double[] coefficients = new double[count(in, Double.BYTES, "coefficients")];
+                    for (int k = 0; k < coefficients.length; k++) {
+                        coefficients[k] = in.getDouble();
+                    }
+                    nodes[i] = FunctionFactory.polynomial(coefficients);
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("unknown tag " + tag + " for node " + i);
+            }
+        }
+        return nodes[count - 1];
+    }
+
+    private static MathFunction reference(ByteBuffer in, MathFunction[] nodes, int here) {
+        int back = varint(in);
+        if (back <= 0 || back > here) {
+            throw new IllegalArgumentException("bad reference " + back + " from node " + here);
+        }
+        return nodes[here - back];
+    }
+
+    /**
+     * Read the number of items that follow, each taking at least some
+     * bytes, and check that the rest of the buffer can hold them, so that
+     * a corrupt count is reported before anything is allocated for it
+     */
+    private static int count(ByteBuffer in, int bytesEach, String what) {
+        int n = varint(in);
+        if (n < 0 || n > in.remaining() / bytesEach) {
+            throw new IllegalArgumentException("bad count of " + what + ": " + n);
+        }
+        return n;
+    }
+
+    private static int varint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("variable-length integer too long");
+    }
+
+    /**
+     * A byte buffer with the writing methods the format needs
+     */
+    private static final class Writer extends ByteArrayOutputStream {
+
+        Writer() {
+            super(1 << 12);
+        }
+
+        void int32(int v) {
+            write(v >>> 24);
+            write(v >>> 16);
+            write(v >>> 8);
+            write(v);
+        }
+
+        void float64(double d) {
+            long v = Double.doubleToRawLongBits(d);
+            int32((int) (v >>> 32));
+            int32((int) v);
+        }
+
+        void varint(int v) {
+            while ((v & ~0x7f) != 0) {
+                write((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            write(v);
+        }
+
+        @Override
+        public synchronized void writeTo(OutputStream out) throws IOException {
+            super.writeTo(out);
+            reset();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package ritmath.io;
+
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads functions written the way toString writes them, for example
+ * <pre>
+ *   ( ( x * cos( x ) * 10.0 ) + sin( ( x * x ) ) + -1.5E-7 )
+ * </pre>
+ * A parenthesized group holds terms all joined by " + " or all joined by
+ * " * "; a group with one term is that term, and the empty group "(  )"
+ * is the empty sum, 0. Numbers are anything Double.parseDouble accepts
+ * that toString can produce, including NaN, Infinity and -Infinity.
+ * Spaces between tokens are optional. Text is read in one pass from the
+ * front, through a fixed-size buffer, and nesting is kept on an explicit
+ * stack rather than by recursion, so there is no limit on how deep a
+ * function may be. Functions are built with FunctionFactory.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class InfixParser {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /** a parenthesized group whose operator is not known yet */
+    private static final int GROUP = 0;
+    /** a parenthesized group of terms joined by + */
+    private static final int SUM = 1;
+    /** a parenthesized group of terms joined by * */
+    private static final int PRODUCT = 2;
+    /** the argument of sin( ... ) */
+    private static final int SINE = 3;
+    /** the argument of cos( ... ) */
+    private static final int COSINE = 4;
+
+    private final Reader reader;
+    private final CharSequence text;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    /** offset in the whole text of buffer[0] */
+    private long bufferStart;
+    /** where the next chunk of text comes from, when reading a CharSequence */
+    private int textIndex;
+    private final StringBuilder word = new StringBuilder();
+
+    private InfixParser(Reader reader, CharSequence text) {
+        this.reader = reader;
+        this.text = text;
+    }
+
+    /**
+     * Read a function from text
+     * @param text a function as toString writes it
+     * @return the function
+     * @throws IllegalArgumentException if text is not a function in that
+     * form; the message gives the offset of the problem
+     */
+    public static MathFunction parse(CharSequence text) {
+        try {
+            return new InfixParser(null, text).parse();
+        } catch (IOException e) {
+            // a CharSequence is never read through a Reader
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read a function from a stream of text, up to its end
+     * @param reader supplies a function as toString writes it
+     * @return the function
+     * @throws IOException if the reader does
+     * @throws IllegalArgumentException if the text is not a function in
+     * that form; the message gives the offset of the problem
+     */
+    public static MathFunction parse(Reader reader) throws IOException {
+        return new InfixParser(reader, null).parse();
+    }
+
+    /**
+     * One open group or function call
+     */
+    private static final class Frame {
+        int kind;
+        final List<MathFunction> terms = new ArrayList<>();
+        /** true after a term, until the operator that follows it */
+        boolean needOperator;
+
+        Frame(int kind) {
+            this.kind = kind;
+        }
+    }
+
+    private MathFunction parse() throws IOException {
+        List<Frame> stack = new ArrayList<>();
+        MathFunction result = null;
+        while (true) {
+            int c = skipSpaces();
+            Frame top = stack.isEmpty() ? null : stack.get(stack.size() - 1);
+            if (c == -1) {
+                if (top != null) {
+                    throw error("missing )");
+                }
+                if (result == null) {
+                    throw error("no function");
+                }
+                return result;
+            }
+            if (top == null && result != null) {
+                throw error("text after the function");
+            }
+            MathFunction term = null;
+            if (c == '(') {
+                expectTerm(top);
+                position++;
+                stack.add(new Frame(GROUP));
+                continue;
+            } else if (c == ')') {
+                if (top == null) {
+                    throw error("unmatched )");
+                }
+                if (!top.needOperator && !top.terms.isEmpty()) {
+                    throw error("missing term");
+                }
+                position++;
+                stack.remove(stack.size() - 1);
+                term = close(top);
+            } else if (c == '+' || c == '*') {
+                int kind = c == '+' ? SUM : PRODUCT;
+                if (top == null || !top.needOperator || top.kind == SINE || top.kind == COSINE) {
+                    throw error("unexpected " + (char) c);
+                }
+                if (top.kind == GROUP) {
+                    top.kind = kind;
+                } else if (top.kind != kind) {
+                    throw error("+ and * mixed in one group");
+                }
+                position++;
+                top.needOperator = false;
+                continue;
+            } else {
+                expectTerm(top);
+                readWord();
+                String w = word.toString();
+                if (w.equals("x")) {
+                    term = FunctionFactory.x();
+                } else if (w.equals("sin") || w.equals("cos")) {
+                    if (skipSpaces() != '(') {
+                        throw error("missing ( after " + w);
+                    }
+                    position++;
+                    stack.add(new Frame(w.equals("sin") ? SINE : COSINE));
+                    continue;
+                } else {
+                    term = number(w);
+                }
+            }
+            if (stack.isEmpty()) {
+                result = term;
+            } else {
+                Frame parent = stack.get(stack.size() - 1);
+                expectTerm(parent);
+                parent.terms.add(term);
+                parent.needOperator = true;
+            }
+        }
+    }
+
+    private void expectTerm(Frame top) {
+        if (top != null && top.needOperator) {
+            throw error(top.kind == SINE || top.kind == COSINE ? "missing )" : "missing + or *");
+        }
+    }
+
+    private MathFunction close(Frame frame) {
+        MathFunction[] terms = frame.terms.toArray(new MathFunction[0]);
+        switch (frame.kind) {
+            case SINE:
+            case COSINE:
+                if (terms.length != 1) {
+                    throw error("missing argument");
+                }
+                return frame.kind == SINE ? FunctionFactory.sine(terms) : FunctionFactory.cosine(terms);
+            case PRODUCT:
+                return FunctionFactory.product(terms);
+            case SUM:
+                return FunctionFactory.sum(terms);
+            default:
+                // ( a ) or (  )
+                return terms.length == 1 ? terms[0] : FunctionFactory.sum(terms);
+        }
+    }
+
+    private MathFunction number(String w) {
+        char first = w.charAt(0);
+        if (first != '-' && first != '.' && first != 'N' && first != 'I' && !Character.isDigit(first)) {
+            throw error("unknown name " + w);
+        }
+        try {
+            return FunctionFactory.constant(Double.parseDouble(w));
+        } catch (NumberFormatException e) {
+            throw error("bad number " + w);
+        }
+    }
+
+    /**
+     * Read the letters, digits, dots and signs of a name or number into
+     * word. A sign only belongs to the word at its start or after an
+     * exponent's E
+     */
+    private void readWord() throws IOException {
+        word.setLength(0);
+        while (true) {
+            int c = peek();
+            boolean sign = c == '-' || c == '+';
+            if (c == -1 || !(Character.isLetterOrDigit(c) || c == '.' || sign)) {
+                break;
+            }
+            if (sign) {
+                int n = word.length();
+                if (n > 0 && word.charAt(n - 1) != 'E' && word.charAt(n - 1) != 'e') {
+                    break;
+                }
+                if (c == '+' && n == 0) {
+                    break;
+                }
+            }
+            word.append((char) c);
+            position++;
+        }
+        if (word.length() == 0) {
+            throw error("unexpected " + (char) peek());
+        }
+    }
+
+    private int skipSpaces() throws IOException {
+        int c = peek();
+        while (c != -1 && Character.isWhitespace(c)) {
+            position++;
+            c = peek();
+        }
+        return c;
+    }
+
+    /**
+     * The next character, without consuming it, or -1 at the end
+     */
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        bufferStart += limit;
+        position = 0;
+        limit = 0;
+        if (reader != null) {
+            int n = reader.read(buffer, 0, buffer.length);
+            while (n == 0) {
+                n = reader.read(buffer, 0, buffer.length);
+            }
+            limit = Math.max(n, 0);
+        } else {
+            int n = Math.min(buffer.length, text.length() - textIndex);
+            for (int i = 0; i < n; i++) {
+                buffer[i] = text.charAt(textIndex + i);
+            }
+            textIndex += n;
+            limit = n;
+        }
+        return limit > 0;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + (bufferStart + position));
+    }
+}
@@ -0,0 +1,21 @@
+package ritmath.simplify;
+
+import ritmath.MathFunction;
+
+/**
+ * One rewrite the Simplifier can make. A rule looks at a single node,
+ * whose children have already been simplified, and either returns an
+ * equal function that is simpler or returns the node unchanged
+ *
+ * @author Key'Mon Jenkins
+ */
+public interface Rule {
+
+    /**
+     * Rewrite one node of a function tree
+     * @param f the node to rewrite; its children are already simplified
+     * @return a function equal to f for every x, or f itself if the rule
+     * does not apply
+     */
+    MathFunction apply(MathFunction f);
+}
@@ -0,0 +1,345 @@
+package ritmath.simplify;
+
+import ritmath.AbstractFunction;
+import ritmath.Constant;
+import ritmath.Cosine;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.Polynomial;
+import ritmath.Product;
+import ritmath.Sine;
+import ritmath.Sum;
+import ritmath.Variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rules the Simplifier uses unless it is given others
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class Rules {
+
+    /**
+     * Splice the terms of a Sum that are themselves Sums into it, and the
+     * factors of a Product that are themselves Products into it. A Sum or
+     * Product with a single child is replaced by that child
+     */
+    public static final Rule FLATTEN = Rules::flatten;
+
+    /**
+     * Put the factors of a Product in a fixed order, with one merged
+     * constant last, so that products of the same factors are equal
+     * however they were built
+     */
+    public static final Rule MERGE_FACTORS = Rules::mergeFactors;
+
+    /**
+     * Add up terms of a Sum that differ only in their constant factor:
+     * x + ( x * 3.0 ) becomes ( x * 4.0 )
+     */
+    public static final Rule COLLECT_LIKE_TERMS = Rules::collectLikeTerms;
+
+    /**
+     * Replace c * sin( u ) * sin( u ) * r + c * cos( u ) * cos( u ) * r
+     * in a Sum by c * r
+     */
+    public static final Rule PYTHAGOREAN = Rules::pythagorean;
+
+    private Rules() {
+    }
+
+    /**
+     * The standard rule set, in the order the rules are tried
+     * @return a new list of FLATTEN, MERGE_FACTORS, COLLECT_LIKE_TERMS
+     * and PYTHAGOREAN
+     */
+    public static List<Rule> standard() {
+        return new ArrayList<>(Arrays.asList(FLATTEN, MERGE_FACTORS, COLLECT_LIKE_TERMS, PYTHAGOREAN));
+    }
+
+    private static MathFunction flatten(MathFunction f) {
+        boolean sum = f instanceof Sum;
+        if (!sum && !(f instanceof Product)) {
+            return f;
+        }
+        AbstractFunction node = (AbstractFunction) f;
+        if (node.numChildren() == 1) {
+            return node.get(0);
+        }
+        boolean nested = false;
+        for (MathFunction child : node) {
+            nested |= child.getClass() == f.getClass();
+        }
+        if (!nested) {
+            return f;
+        }
+        List<MathFunction> children = new ArrayList<>();
+        for (MathFunction child : node) {
+            if (child.getClass() == f.getClass()) {
+                for (MathFunction grandchild : (AbstractFunction) child) {
+                    children.add(grandchild);
+                }
+            } else {
+                children.add(child);
+            }
+        }
+        MathFunction[] args = children.toArray(new MathFunction[0]);
+        return sum ? FunctionFactory.sum(args) : FunctionFactory.product(args);
+    }
+
+    /** where each kind of factor goes in a merged product */
+    private static int rank(MathFunction f) {
+        if (f instanceof Variable) {
+            return 0;
+        }
+        if (f instanceof Sine) {
+            return 1;
+        }
+        if (f instanceof Cosine) {
+            return 2;
+        }
+        if (f instanceof Sum) {
+            return 3;
+        }
+        return 4;
+    }
+
+    /**
+     * The order of the factors in a merged product: by kind, then by hash
+     * code, which is quick, then by structure, so that distinct factors
+     * whose hash codes happen to be equal still have one order
+     */
+    private static final Comparator<MathFunction> FACTOR_ORDER =
+            Comparator.comparingInt(Rules::rank).thenComparingInt(MathFunction::hashCode)
+                    .thenComparing(Rules::compareStructure);
+
+    /**
+     * A total order on functions that agrees with equals: by the kind of
+     * node, then by value for constants and polynomials, then child by
+     * child. Functions of other kinds are told apart by their text
+     */
+    private static int compareStructure(MathFunction a, MathFunction b) {
+        if (a == b) {
+            return 0;
+        }
+        int c = a.getClass().getName().compareTo(b.getClass().getName());
+        if (c != 0) {
+            return c;
+        }
+        if (a instanceof Constant) {
+            return Double.compare(a.evaluate(0), b.evaluate(0));
+        }
+        if (a instanceof Polynomial) {
+            Polynomial p = (Polynomial) a;
+            Polynomial q = (Polynomial) b;
+            c = Integer.compare(p.degree(), q.degree());
+            for (int k = 0; c == 0 && k <= p.degree(); k++) {
+                c = Double.compare(p.coefficient(k), q.coefficient(k));
+            }
+            return c;
+        }
+        if (a instanceof AbstractFunction) {
+            AbstractFunction m = (AbstractFunction) a;
+            AbstractFunction n = (AbstractFunction) b;
+            c = Integer.compare(m.numChildren(), n.numChildren());
+            for (int i = 0; c == 0 && i < m.numChildren(); i++) {
+                c = compareStructure(m.get(i), n.get(i));
+            }
+            return c;
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    private static MathFunction mergeFactors(MathFunction f) {
+        if (!(f instanceof Product)) {
+            return f;
+        }
+        AbstractFunction node = (AbstractFunction) f;
+        MathFunction[] factors = new MathFunction[node.numChildren()];
+        int n = 0;
+        int constants = 0;
+        double constant = 1;
+        for (MathFunction factor : node) {
+            if (factor.isConstant()) {
+                constant *= factor.evaluate(0);
+                constants++;
+            } else {
+                factors[n++] = factor;
+            }
+        }
+        if (constant == 0) {
+            return FunctionFactory.constant(0);
+        }
+        MathFunction[] sorted = Arrays.copyOf(factors, n);
+        Arrays.sort(sorted, FACTOR_ORDER);
+        if (constants <= 1 && Arrays.equals(sorted, Arrays.copyOf(factors, n))) {
+            return f;
+        }
+        return product(sorted, constant);
+    }
+
+    /**
+     * Build the product of some non-constant factors and a constant,
+     * leaving the constant out when it is 1
+     */
+    private static MathFunction product(MathFunction[] factors, double constant) {
+        if (constant == 1) {
+            if (factors.length == 0) {
+                return FunctionFactory.constant(1);
+            }
+            return factors.length == 1 ? factors[0] : FunctionFactory.product(factors);
+        }
+        MathFunction[] args = Arrays.copyOf(factors, factors.length + 1);
+        args[factors.length] = FunctionFactory.constant(constant);
+        return FunctionFactory.product(args);
+    }
+
+    /** the non-constant factors of a term, as a Product would hold them */
+    private static MathFunction[] factorsOf(MathFunction term) {
+        if (!(term instanceof Product)) {
+            return new MathFunction[]{term};
+        }
+        AbstractFunction node = (AbstractFunction) term;
+        List<MathFunction> factors = new ArrayList<>();
+        for (MathFunction factor : node) {
+            if (!factor.isConstant()) {
+                factors.add(factor);
+            }
+        }
+        return factors.toArray(new MathFunction[0]);
+    }
+
+    /** the product of the constant factors of a term */
+    private static double coefficientOf(MathFunction term) {
+        double c = 1;
+        if (term instanceof Product) {
+            for (MathFunction factor : (AbstractFunction) term) {
+                if (factor.isConstant()) {
+                    c *= factor.evaluate(0);
+                }
+            }
+        }
+        return c;
+    }
+
+    private static MathFunction collectLikeTerms(MathFunction f) {
+        if (!(f instanceof Sum)) {
+            return f;
+        }
+        AbstractFunction node = (AbstractFunction) f;
+        List<MathFunction[]> bases = new ArrayList<>();
+        List<Double> coefficients = new ArrayList<>();
+        Map<List<MathFunction>, Integer> index = new HashMap<>();
+        double constant = 0;
+        int terms = 0;
+        for (MathFunction term : node) {
+            if (term.isConstant()) {
+                constant += term.evaluate(0);
+                continue;
+            }
+            terms++;
+            MathFunction[] base = factorsOf(term);
+            double c = coefficientOf(term);
+            Integer i = index.get(Arrays.asList(base));
+            if (i == null) {
+                index.put(Arrays.asList(base), bases.size());
+                bases.add(base);
+                coefficients.add(c);
+            } else {
+                coefficients.set(i, coefficients.get(i) + c);
+            }
+        }
+        if (bases.size() == terms) {
+            return f;
+        }
+        List<MathFunction> result = new ArrayList<>();
+        for (int i = 0; i < bases.size(); i++) {
+            double c = coefficients.get(i);
+            if (c != 0) {
+                result.add(product(bases.get(i), c));
+            }
+        }
+        if (constant != 0) {
+            result.add(FunctionFactory.constant(constant));
+        }
+        return FunctionFactory.sum(result.toArray(new MathFunction[0]));
+    }
+
+    private static MathFunction pythagorean(MathFunction f) {
+        if (!(f instanceof Sum)) {
+            return f;
+        }
+        AbstractFunction node = (AbstractFunction) f;
+        int n = node.numChildren();
+        MathFunction[] terms = new MathFunction[n];
+        for (int i = 0; i < n; i++) {
+            terms[i] = node.get(i);
+        }
+        boolean changed = false;
+        for (int i = 0; i < n; i++) {
+            if (terms[i] == null) {
+                continue;
+            }
+            MathFunction[] factors = factorsOf(terms[i]);
+            MathFunction square = repeatedSine(factors);
+            if (square == null) {
+                continue;
+            }
+            MathFunction u = ((AbstractFunction) square).get(0);
+            MathFunction cos = FunctionFactory.cosine(u);
+            MathFunction[] rest = new MathFunction[factors.length - 2];
+            MathFunction[] partnerFactors = new MathFunction[factors.length];
+            int removed = 0;
+            int r = 0;
+            for (int k = 0; k < factors.length; k++) {
+                if (removed < 2 && factors[k].equals(square)) {
+                    partnerFactors[k] = cos;
+                    removed++;
+                } else {
+                    partnerFactors[k] = factors[k];
+                    rest[r++] = factors[k];
+                }
+            }
+            double c = coefficientOf(terms[i]);
+            MathFunction partner = mergeFactors(product(partnerFactors, c));
+            for (int j = 0; j < n; j++) {
+                if (j != i && terms[j] != null && terms[j].equals(partner)) {
+                    terms[i] = product(rest, c);
+                    terms[j] = null;
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        if (!changed) {
+            return f;
+        }
+        List<MathFunction> result = new ArrayList<>();
+        for (MathFunction term : terms) {
+            if (term != null) {
+                result.add(term);
+            }
+        }
+        return FunctionFactory.sum(result.toArray(new MathFunction[0]));
+    }
+
+    /** a Sine that occurs at least twice among some factors, or null */
+    private static MathFunction repeatedSine(MathFunction[] factors) {
+        for (int a = 0; a < factors.length; a++) {
+            if (factors[a] instanceof Sine) {
+                for (int b = a + 1; b < factors.length; b++) {
+                    if (factors[a].equals(factors[b])) {
+                        return factors[a];
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,166 @@
+package ritmath.simplify;
+
+import ritmath.AbstractFunction;
+import ritmath.Cosine;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.Product;
+import ritmath.Sine;
+import ritmath.Sum;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites a function tree into a smaller equal one by applying a set of
+ * rules. Each node is simplified after its children, and the rules are
+ * tried on it until none of them changes it; passes over the whole tree
+ * are repeated until one changes nothing. A subtree shared by several
+ * parents is simplified once. Nodes that are not Sums, Products, Sines
+ * or Cosines are left as they are.
+ *
+ * @author Key'Mon Jenkins
+ */
+public class Simplifier {
+
+    /** the node budget used by Simplifier() */
+    public static final long DEFAULT_NODE_BUDGET = 1_000_000;
+
+    private final List<Rule> rules;
+    private final long nodeBudget;
+
+    /**
+     * Create a simplifier with the standard rules and the default budget
+     */
+    public Simplifier() {
+        this(Rules.standard(), DEFAULT_NODE_BUDGET);
+    }
+
+    /**
+     * Create a simplifier
+     * @param rules the rules to apply, in the order they are tried
+     * @param nodeBudget the most node visits one call to simplify may make.
+     *                   A node is counted each time it is visited and each
+     *                   time a rule rewrites it. Once the budget is used
+     *                   up, the rest of the tree is left as it is
+     */
+    public Simplifier(List<Rule> rules, long nodeBudget) {
+        if (nodeBudget < 0) {
+            throw new IllegalArgumentException("negative node budget " + nodeBudget);
+        }
+        this.rules = new ArrayList<>(rules);
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * Simplify a function
+     * @param f the function to simplify
+     * @return the simplified function, with the sizes before and after
+     */
+    public SimplifyResult simplify(MathFunction f) {
+        Run run = new Run();
+        MathFunction current = f;
+        int passes = 0;
+        while (true) {
+            passes++;
+            run.memo.clear();
+            MathFunction next = run.visit(current);
+            if (next.equals(current) || run.spent >= nodeBudget) {
+                current = next;
+                break;
+            }
+            current = next;
+        }
+        return new SimplifyResult(current, countNodes(f), countNodes(current), passes,
+                run.spent < nodeBudget);
+    }
+
+    /**
+     * Count the distinct nodes of a function, so that a subtree shared by
+     * several parents is counted once
+     * @param f the root of the function
+     * @return how many different node objects make up f
+     */
+    public static int countNodes(MathFunction f) {
+        Map<MathFunction, Boolean> seen = new IdentityHashMap<>();
+        List<MathFunction> pending = new ArrayList<>();
+        pending.add(f);
+        while (!pending.isEmpty()) {
+            MathFunction node = pending.remove(pending.size() - 1);
+            if (seen.put(node, Boolean.TRUE) == null && node instanceof AbstractFunction) {
+                for (MathFunction child : (AbstractFunction) node) {
+                    pending.add(child);
+                }
+            }
+        }
+        return seen.size();
+    }
+
+    /**
+     * Build a node of the same kind as f with other children
+     */
+    private static MathFunction rebuild(MathFunction f, MathFunction[] children) {
+        if (f instanceof Sum) {
+            return FunctionFactory.sum(children);
+        }
+        if (f instanceof Product) {
+            return FunctionFactory.product(children);
+        }
+        if (f instanceof Sine) {
+            return FunctionFactory.sine(children);
+        }
+        return FunctionFactory.cosine(children);
+    }
+
+    private static boolean isRewritable(MathFunction f) {
+        return f instanceof Sum || f instanceof Product || f instanceof Sine || f instanceof Cosine;
+    }
+
+    /**
+     * The state of one call to simplify
+     */
+    private class Run {
+        private final Map<MathFunction, MathFunction> memo = new IdentityHashMap<>();
+        private long spent;
+
+        MathFunction visit(MathFunction f) {
+            MathFunction done = memo.get(f);
+            if (done != null) {
+                return done;
+            }
+            MathFunction result = rewrite(f);
+            memo.put(f, result);
+            return result;
+        }
+
+        private MathFunction rewrite(MathFunction f) {
+            if (!isRewritable(f) || spent >= nodeBudget) {
+                return f;
+            }
+            spent++;
+            AbstractFunction node = (AbstractFunction) f;
+            MathFunction[] children = new MathFunction[node.numChildren()];
+            boolean changed = false;
+            for (int i = 0; i < children.length; i++) {
+                children[i] = visit(node.get(i));
+                changed |= children[i] != node.get(i);
+            }
+            MathFunction g = changed ? rebuild(f, children) : f;
+            for (Rule rule : rules) {
+                if (spent >= nodeBudget) {
+                    break;
+                }
+                MathFunction h = rule.apply(g);
+                if (h != g && !h.equals(g)) {
+                    spent++;
+                    // what a rule builds may need the other rules, and
+                    // its new subtrees may need simplifying too
+                    return visit(h);
+                }
+            }
+            return g;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ritmath.simplify;
+
+import ritmath.MathFunction;
+
+/**
+ * The outcome of simplifying a function: the simplified function, how
+ * big it was before and after, and whether the simplifier finished
+ *
+ * @author Key'Mon Jenkins
+ */
+public class SimplifyResult {
+    /** the simplified function */
+    private final MathFunction function;
+
+    /** distinct nodes in the function that was simplified */
+    private final int nodesBefore;
+
+    /** distinct nodes in the simplified function */
+    private final int nodesAfter;
+
+    /** how many passes over the tree were made */
+    private final int passes;
+
+    /** false if the node budget ran out before a fixed point was reached */
+    private final boolean complete;
+
+    /**
+     * Record the outcome of a simplification
+     * @param function the simplified function
+     * @param nodesBefore distinct nodes in the function that was simplified
+     * @param nodesAfter distinct nodes in the simplified function
+     * @param passes how many passes over the tree were made
+     * @param complete false if the node budget ran out first
+     */
+    public SimplifyResult(MathFunction function, int nodesBefore, int nodesAfter, int passes,
+                          boolean complete) {
+        this.function = function;
+        this.nodesBefore = nodesBefore;
+        this.nodesAfter = nodesAfter;
+        this.passes = passes;
+        this.complete = complete;
+    }
+
+    /**
+     * The simplified function
+     * @return a function equal to the one simplified
+     */
+    public MathFunction getFunction() {
+        return function;
+    }
+
+    /**
+     * The size of the function that was simplified
+     * @return its number of distinct nodes
+     */
+    public int getNodesBefore() {
+        return nodesBefore;
+    }
+
+    /**
+     * The size of the simplified function
+     * @return its number of distinct nodes
+     */
+    public int getNodesAfter() {
+        return nodesAfter;
+    }
+
+    /**
+     * How many passes over the tree were made
+     * @return at least 1
+     */
+    public int getPasses() {
+        return passes;
+    }
+
+    /**
+     * Did the simplifier reach a point where no rule applies?
+     * @return false if the node budget ran out first
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Show the simplified function and the sizes
+     * @return the textual representation of this result
+     */
+    public String toString() {
+        return function + " (" + nodesBefore + " -> " + nodesAfter + " nodes"
+                + (complete ? "" : ", budget exhausted") + ")";
+    }
+}
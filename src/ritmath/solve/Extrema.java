@@ -0,0 +1,223 @@
+package ritmath.solve;
+
+import ritmath.MathFunction;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the local minima and maxima of a function in an interval, and
+ * its smallest and largest values there. The interval is cut into
+ * SUB_INTERVALS equal parts, which are searched in parallel. In each
+ * part the roots of the symbolic derivative f' are found with
+ * RootFinder, which scans f' on a grid and refines every sign change by
+ * Newton's method on f' and f''. A root where f' goes from + to - is a
+ * maximum, from - to + a minimum. Each one is checked against the values
+ * of f on either side; where f' disagrees with them, which happens where
+ * f is so flat that rounding decides the sign of f', the extremum is
+ * located by golden-section search on the values of f instead, which
+ * only places it to about 1e-8 relative, as values compare equal there.
+ * This needs about DEFAULT_SCAN_POINTS evaluations of f' plus a handful
+ * per extremum, where sampling f densely enough to place the extrema as
+ * precisely would need millions. Extrema of f closer together than the
+ * scan spacing can be missed, as RootFinder explains.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class Extrema {
+
+    /** how many parts the interval is cut into, to search in parallel */
+    public static final int SUB_INTERVALS = 16;
+
+    /** grid points for scanning f' over the whole interval */
+    public static final int DEFAULT_SCAN_POINTS = RootFinder.DEFAULT_SCAN_POINTS;
+
+    /** the golden ratio's reciprocal, (sqrt(5) - 1) / 2 */
+    private static final double GOLDEN = 0.6180339887498949;
+
+    /** golden-section search stops once the bracket is this small, relatively */
+    private static final double TOLERANCE = 1e-10;
+
+    private Extrema() {
+    }
+
+    /**
+     * Find the extrema of a function between two points
+     * @param f the function
+     * @param a one end of the interval
+     * @param b the other end of the interval
+     * @return the local minima and maxima inside the interval, the
+     * smallest and largest values on it, and the work done
+     */
+    public static ExtremaResult find(MathFunction f, double a, double b) {
+        double lower = Math.min(a, b);
+        double upper = Math.max(a, b);
+        MathFunction derivative = f.derivative();
+        double width = (upper - lower) / SUB_INTERVALS;
+        int points = Math.max(2, DEFAULT_SCAN_POINTS / SUB_INTERVALS + 1);
+        RootFinder finder = new RootFinder(points, RootFinder.DEFAULT_TOLERANCE, RootFinder.DEFAULT_MAX_ITERATIONS);
+        double spacing = width / (points - 1);
+
+        Part[] parts = new Part[SUB_INTERVALS];
+        IntStream.range(0, SUB_INTERVALS).parallel().forEach(i -> {
+            double from = lower + i * width;
+            double to = i == SUB_INTERVALS - 1 ? upper : lower + (i + 1) * width;
+            parts[i] = search(f, derivative, finder, from, to, spacing);
+        });
+
+        double[] minima = new double[0];
+        double[] maxima = new double[0];
+        int fallbacks = 0;
+        long evaluations = 2;
+        long derivativeEvaluations = 0;
+        double argMin = lower;
+        double min = f.evaluate(lower);
+        double argMax = lower;
+        double max = min;
+        double atUpper = f.evaluate(upper);
+        if (atUpper < min) {
+            argMin = upper;
+            min = atUpper;
+        }
+        if (atUpper > max) {
+            argMax = upper;
+            max = atUpper;
+        }
+        for (Part part : parts) {
+            minima = merge(minima, part.minima);
+            maxima = merge(maxima, part.maxima);
+            fallbacks += part.fallbacks;
+            evaluations += part.evaluations;
+            derivativeEvaluations += part.derivativeEvaluations;
+            for (int k = 0; k < part.minima.length; k++) {
+                if (part.minimumValues[k] < min) {
+                    argMin = part.minima[k];
+                    min = part.minimumValues[k];
+                }
+            }
+            for (int k = 0; k < part.maxima.length; k++) {
+                if (part.maximumValues[k] > max) {
+                    argMax = part.maxima[k];
+                    max = part.maximumValues[k];
+                }
+            }
+        }
+        return new ExtremaResult(minima, maxima, argMin, min, argMax, max, fallbacks,
+                evaluations, derivativeEvaluations);
+    }
+
+    /**
+     * Add the points of a later part, leaving out one that an earlier
+     * part found too, on their common end
+     */
+    private static double[] merge(double[] before, double[] after) {
+        int skip = before.length > 0 && after.length > 0 && after[0] == before[before.length - 1] ? 1 : 0;
+        double[] all = Arrays.copyOf(before, before.length + after.length - skip);
+        System.arraycopy(after, skip, all, before.length, after.length - skip);
+        return all;
+    }
+
+    /**
+     * What was found in one part of the interval
+     */
+    private static final class Part {
+        double[] minima;
+        double[] minimumValues;
+        double[] maxima;
+        double[] maximumValues;
+        int fallbacks;
+        long evaluations;
+        long derivativeEvaluations;
+    }
+
+    /**
+     * Find and classify the roots of f' in one part of the interval
+     * @param f the function
+     * @param derivative f'
+     * @param finder the root finder, set up for one part
+     * @param from the lower end of the part
+     * @param to the upper end of the part
+     * @param spacing the distance between the finder's grid points
+     */
+    private static Part search(MathFunction f, MathFunction derivative, RootFinder finder,
+                               double from, double to, double spacing) {
+        Part part = new Part();
+        RootResult roots = finder.find(derivative, from, to);
+        part.derivativeEvaluations = roots.getEvaluations() + roots.getDerivativeEvaluations();
+        double[] xs = roots.getRoots();
+        double[] minima = new double[xs.length];
+        double[] minimumValues = new double[xs.length];
+        double[] maxima = new double[xs.length];
+        double[] maximumValues = new double[xs.length];
+        int mins = 0;
+        int maxs = 0;
+        double step = spacing / 4;
+        for (double x : xs) {
+            // which way f' changes sign, judged just outside the refined root
+            double left = derivative.evaluate(x - step);
+            double right = derivative.evaluate(x + step);
+            part.derivativeEvaluations += 2;
+            boolean maximum = left > 0 && right < 0;
+            boolean minimum = left < 0 && right > 0;
+            if (!maximum && !minimum) {
+                // f' touches 0 without changing sign: no extremum
+                continue;
+            }
+            double value = f.evaluate(x);
+            double before = f.evaluate(x - step);
+            double after = f.evaluate(x + step);
+            part.evaluations += 3;
+            boolean agrees = maximum ? value >= before && value >= after : value <= before && value <= after;
+            if (!agrees) {
+                double[] found = goldenSection(f, Math.max(from, x - spacing), Math.min(to, x + spacing), maximum);
+                x = found[0];
+                value = found[1];
+                part.evaluations += (long) found[2];
+                part.fallbacks++;
+            }
+            if (maximum) {
+                maxima[maxs] = x;
+                maximumValues[maxs++] = value;
+            } else {
+                minima[mins] = x;
+                minimumValues[mins++] = value;
+            }
+        }
+        part.minima = Arrays.copyOf(minima, mins);
+        part.minimumValues = Arrays.copyOf(minimumValues, mins);
+        part.maxima = Arrays.copyOf(maxima, maxs);
+        part.maximumValues = Arrays.copyOf(maximumValues, maxs);
+        return part;
+    }
+
+    /**
+     * Locate the largest or smallest value of f between two points by
+     * golden-section search, which only compares values of f
+     * @return the point, the value there, and how many evaluations it took
+     */
+    private static double[] goldenSection(MathFunction f, double low, double high, boolean maximum) {
+        double sign = maximum ? -1 : 1;
+        double c = high - GOLDEN * (high - low);
+        double d = low + GOLDEN * (high - low);
+        double fc = sign * f.evaluate(c);
+        double fd = sign * f.evaluate(d);
+        long evaluations = 2;
+        while (high - low > TOLERANCE * Math.max(1, Math.abs(c))) {
+            if (fc <= fd) {
+                high = d;
+                d = c;
+                fd = fc;
+                c = high - GOLDEN * (high - low);
+                fc = sign * f.evaluate(c);
+            } else {
+                low = c;
+                c = d;
+                fc = fd;
+                d = low + GOLDEN * (high - low);
+                fd = sign * f.evaluate(d);
+            }
+            evaluations++;
+        }
+        return fc <= fd ? new double[]{c, sign * fc, evaluations} : new double[]{d, sign * fd, evaluations};
+    }
+}
@@ -0,0 +1,151 @@
+package ritmath.solve;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of a search for extrema: the local minima and maxima
+ * inside the interval, in increasing order, the smallest and largest
+ * values on the whole interval (the ends included), and what finding
+ * them cost
+ *
+ * @author Key'Mon Jenkins
+ */
+public class ExtremaResult {
+    /** where the local minima are, in increasing order */
+    private final double[] minima;
+
+    /** where the local maxima are, in increasing order */
+    private final double[] maxima;
+
+    /** where the function is smallest on the interval */
+    private final double argMin;
+
+    /** the smallest value on the interval */
+    private final double min;
+
+    /** where the function is largest on the interval */
+    private final double argMax;
+
+    /** the largest value on the interval */
+    private final double max;
+
+    /** extrema located by golden-section search rather than by f' */
+    private final int fallbacks;
+
+    /** evaluations of the function itself */
+    private final long evaluations;
+
+    /** evaluations of the derivative, alone or with its own derivative */
+    private final long derivativeEvaluations;
+
+    /**
+     * Record the outcome of a search
+     * @param minima where the local minima are, in increasing order
+     * @param maxima where the local maxima are, in increasing order
+     * @param argMin where the function is smallest on the interval
+     * @param min the smallest value
+     * @param argMax where the function is largest on the interval
+     * @param max the largest value
+     * @param fallbacks extrema located by golden-section search
+     * @param evaluations evaluations of the function itself
+     * @param derivativeEvaluations evaluations of the derivative
+     */
+    public ExtremaResult(double[] minima, double[] maxima, double argMin, double min,
+                         double argMax, double max, int fallbacks, long evaluations,
+                         long derivativeEvaluations) {
+        this.minima = minima;
+        this.maxima = maxima;
+        this.argMin = argMin;
+        this.min = min;
+        this.argMax = argMax;
+        this.max = max;
+        this.fallbacks = fallbacks;
+        this.evaluations = evaluations;
+        this.derivativeEvaluations = derivativeEvaluations;
+    }
+
+    /**
+     * Where the local minima inside the interval are
+     * @return a new array of points, in increasing order
+     */
+    public double[] getMinima() {
+        return minima.clone();
+    }
+
+    /**
+     * Where the local maxima inside the interval are
+     * @return a new array of points, in increasing order
+     */
+    public double[] getMaxima() {
+        return maxima.clone();
+    }
+
+    /**
+     * Where the function is smallest on the interval, ends included
+     * @return the point
+     */
+    public double getArgMin() {
+        return argMin;
+    }
+
+    /**
+     * The smallest value of the function on the interval
+     * @return f(getArgMin())
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Where the function is largest on the interval, ends included
+     * @return the point
+     */
+    public double getArgMax() {
+        return argMax;
+    }
+
+    /**
+     * The largest value of the function on the interval
+     * @return f(getArgMax())
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * How many extrema were located by golden-section search on the
+     * function's values, because the derivative disagreed with them
+     * @return the number of fallbacks
+     */
+    public int getFallbacks() {
+        return fallbacks;
+    }
+
+    /**
+     * How many times the function itself was evaluated
+     * @return the number of evaluations
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * How many times the derivative was evaluated, alone or together
+     * with its own derivative
+     * @return the number of evaluations
+     */
+    public long getDerivativeEvaluations() {
+        return derivativeEvaluations;
+    }
+
+    /**
+     * Show the extrema and the cost
+     * @return the textual representation of this result
+     */
+    public String toString() {
+        return "min " + min + " at " + argMin + ", max " + max + " at " + argMax
+                + ", minima " + Arrays.toString(minima) + ", maxima " + Arrays.toString(maxima)
+                + " (" + fallbacks + " fallbacks, " + evaluations + " evaluations, "
+                + derivativeEvaluations + " of the derivative)";
+    }
+}
@@ -0,0 +1,215 @@
+package ritmath.solve;
+
+import ritmath.Dual;
+import ritmath.MathFunction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the roots of a function in an interval. The function is first
+ * evaluated on an evenly spaced grid, with the batch evaluate method;
+ * every point where it is exactly 0 is a root, and every pair of
+ * neighbouring points where it changes sign brackets one. Each bracket
+ * is then narrowed by safeguarded Newton iteration: Newton's step is
+ * taken while it stays inside the bracket and at least halves the step
+ * before, and otherwise the bracket is bisected, so every step is at
+ * least as good as bisection and convergence near the root is
+ * quadratic. A bracket that has not converged after maxIterations steps
+ * gives the midpoint of what is left of it, and is counted in
+ * RootResult.getUnconverged(). The value and the derivative come from one
+ * evaluateWithDerivative call per step, so derivative() is never built
+ * for functions that can carry the derivative along. When there are
+ * enough brackets they are refined in parallel on the common
+ * ForkJoinPool.
+ * Roots where the function touches 0 without changing sign, and pairs of
+ * roots closer together than the grid spacing, are not found unless a
+ * grid point lands on them exactly; use more scan points for those.
+ *
+ * @author Key'Mon Jenkins
+ */
+public class RootFinder {
+
+    /** the default number of grid points for the scan */
+    public static final int DEFAULT_SCAN_POINTS = 4096;
+
+    /** the default tolerance; see RootFinder(int, double, int) */
+    public static final double DEFAULT_TOLERANCE = 1e-14;
+
+    /** the default limit on refinement steps per root */
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    /** from this many brackets on, they are refined in parallel */
+    private static final int PARALLEL_THRESHOLD = 8;
+
+    private final int scanPoints;
+    private final double tolerance;
+    private final int maxIterations;
+
+    /**
+     * Create a root finder with the default settings
+     */
+    public RootFinder() {
+        this(DEFAULT_SCAN_POINTS, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * Create a root finder
+     * @param scanPoints how many grid points to evaluate when looking for
+     *                   sign changes, including both ends; at least 2
+     * @param tolerance a root is accepted once the last step moved it by
+     *                  at most tolerance * max(1, |root|)
+     * @param maxIterations the most refinement steps taken for one root
+     */
+    public RootFinder(int scanPoints, double tolerance, int maxIterations) {
+        if (scanPoints < 2 || !(tolerance > 0) || maxIterations < 1) {
+            throw new IllegalArgumentException("bad settings " + scanPoints + ", " + tolerance
+                    + ", " + maxIterations);
+        }
+        this.scanPoints = scanPoints;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Find the roots of a function between two points
+     * @param f the function
+     * @param a one end of the interval
+     * @param b the other end of the interval
+     * @return the roots found, in increasing order, and the work done
+     */
+    public RootResult find(MathFunction f, double a, double b) {
+        double lower = Math.min(a, b);
+        double upper = Math.max(a, b);
+        double[] xs = new double[scanPoints];
+        double step = (upper - lower) / (scanPoints - 1);
+        for (int i = 0; i < scanPoints; i++) {
+            xs[i] = lower + i * step;
+        }
+        xs[scanPoints - 1] = upper;
+        double[] values = new double[scanPoints];
+        f.evaluate(xs, values);
+
+        List<Double> exact = new ArrayList<>();
+        List<Integer> brackets = new ArrayList<>();
+        for (int i = 0; i < scanPoints; i++) {
+            if (values[i] == 0) {
+                exact.add(xs[i]);
+            } else if (i + 1 < scanPoints
+                    && (values[i] < 0 && values[i + 1] > 0 || values[i] > 0 && values[i + 1] < 0)) {
+                brackets.add(i);
+            }
+        }
+
+        Refinement[] refined = new Refinement[brackets.size()];
+        IntStream indices = IntStream.range(0, refined.length);
+        if (refined.length >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(k -> {
+            int i = brackets.get(k);
+            refined[k] = refine(f, xs[i], values[i], xs[i + 1]);
+        });
+
+        double[] roots = new double[exact.size() + refined.length];
+        long newton = 0;
+        long bisection = 0;
+        long withDerivative = 0;
+        int unconverged = 0;
+        int n = 0;
+        for (Refinement r : refined) {
+            roots[n++] = r.root;
+            newton += r.newtonSteps;
+            bisection += r.bisectionSteps;
+            withDerivative += r.evaluations;
+            if (!r.converged) {
+                unconverged++;
+            }
+        }
+        for (double x : exact) {
+            roots[n++] = x;
+        }
+        Arrays.sort(roots);
+        return new RootResult(roots, refined.length, unconverged, newton, bisection, scanPoints,
+                withDerivative);
+    }
+
+    /**
+     * The outcome of narrowing one bracket
+     */
+    private static final class Refinement {
+        double root;
+        boolean converged;
+        int newtonSteps;
+        int bisectionSteps;
+        int evaluations;
+    }
+
+    /**
+     * Narrow a bracket down to a root by safeguarded Newton iteration. If
+     * maxIterations steps do not get there, the root is the midpoint of
+     * what is left of the bracket, which is no worse than bisection
+     * @param f the function
+     * @param left one end of the bracket
+     * @param leftValue f(left), not 0
+     * @param right the other end, where f has the other sign
+     */
+    private Refinement refine(MathFunction f, double left, double leftValue, double right) {
+        Refinement r = new Refinement();
+        // f is negative at low and positive at high, whichever is smaller
+        double low = leftValue < 0 ? left : right;
+        double high = leftValue < 0 ? right : left;
+        double x = left + (right - left) / 2;
+        double dx = Math.abs(right - left);
+        double dxOld = dx;
+        Dual d = f.evaluateWithDerivative(x);
+        r.evaluations++;
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            double v = d.getValue();
+            double slope = d.getDerivative();
+            if (v == 0) {
+                r.converged = true;
+                break;
+            }
+            if (v < 0) {
+                low = x;
+            } else {
+                high = x;
+            }
+            boolean outside = ((x - high) * slope - v) * ((x - low) * slope - v) > 0;
+            boolean slow = Math.abs(2 * v) > Math.abs(dxOld * slope);
+            if (slope == 0 || !Double.isFinite(slope) || outside || slow) {
+                dxOld = dx;
+                dx = (high - low) / 2;
+                x = low + dx;
+                r.bisectionSteps++;
+            } else {
+                dxOld = dx;
+                dx = v / slope;
+                x -= dx;
+                r.newtonSteps++;
+            }
+            if (Math.abs(dx) <= tolerance * Math.max(1, Math.abs(x))) {
+                r.converged = true;
+                break;
+            }
+            d = f.evaluateWithDerivative(x);
+            r.evaluations++;
+        }
+        if (r.converged) {
+            r.root = x;
+        } else {
+            // the last iterate may be anywhere in the bracket; narrow it
+            // with the value there and take the middle
+            if (d.getValue() < 0) {
+                low = x;
+            } else if (d.getValue() > 0) {
+                high = x;
+            }
+            r.root = d.getValue() == 0 ? x : low + (high - low) / 2;
+        }
+        return r;
+    }
+}
@@ -0,0 +1,132 @@
+package ritmath.solve;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of a search for roots: the roots found, in increasing
+ * order, and what finding them cost
+ *
+ * @author Key'Mon Jenkins
+ */
+public class RootResult {
+    /** the roots, in increasing order */
+    private final double[] roots;
+
+    /** how many sign changes the scan found */
+    private final int brackets;
+
+    /** brackets that ran out of refinement steps before converging */
+    private final int unconverged;
+
+    /** refinement steps that took Newton's step */
+    private final long newtonSteps;
+
+    /** refinement steps that bisected the bracket instead */
+    private final long bisectionSteps;
+
+    /** points where only the value of the function was computed */
+    private final long evaluations;
+
+    /** points where the value and the derivative were computed together */
+    private final long derivativeEvaluations;
+
+    /**
+     * Record the outcome of a search
+     * @param roots the roots, in increasing order
+     * @param brackets how many sign changes the scan found
+     * @param unconverged brackets that ran out of refinement steps
+     * @param newtonSteps refinement steps that took Newton's step
+     * @param bisectionSteps refinement steps that bisected instead
+     * @param evaluations points where only the value was computed
+     * @param derivativeEvaluations points where the value and the
+     *                              derivative were computed together
+     */
+    public RootResult(double[] roots, int brackets, int unconverged, long newtonSteps,
+                      long bisectionSteps, long evaluations, long derivativeEvaluations) {
+        this.roots = roots;
+        this.brackets = brackets;
+        this.unconverged = unconverged;
+        this.newtonSteps = newtonSteps;
+        this.bisectionSteps = bisectionSteps;
+        this.evaluations = evaluations;
+        this.derivativeEvaluations = derivativeEvaluations;
+    }
+
+    /**
+     * The roots found
+     * @return a new array of the roots, in increasing order
+     */
+    public double[] getRoots() {
+        return roots.clone();
+    }
+
+    /**
+     * How many sign changes the scan found; each was refined to a root
+     * @return the number of brackets
+     */
+    public int getBrackets() {
+        return brackets;
+    }
+
+    /**
+     * How many brackets were not narrowed to the tolerance within the
+     * finder's maxIterations steps; their roots are the midpoints of what
+     * was left of the brackets, so they are less precise than the rest
+     * @return the number of unconverged brackets, 0 if all converged
+     */
+    public int getUnconverged() {
+        return unconverged;
+    }
+
+    /**
+     * How many refinement steps were taken, of either kind
+     * @return the total number of iterations
+     */
+    public long getIterations() {
+        return newtonSteps + bisectionSteps;
+    }
+
+    /**
+     * How many refinement steps took Newton's step
+     * @return the number of Newton steps
+     */
+    public long getNewtonSteps() {
+        return newtonSteps;
+    }
+
+    /**
+     * How many refinement steps bisected the bracket, because Newton's
+     * step would have left it or was not shrinking fast enough
+     * @return the number of bisection steps
+     */
+    public long getBisectionSteps() {
+        return bisectionSteps;
+    }
+
+    /**
+     * How many times the function alone was evaluated, by the scan
+     * @return the number of evaluations
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * How many times the function and its derivative were evaluated
+     * together, by the refinement
+     * @return the number of evaluateWithDerivative calls
+     */
+    public long getDerivativeEvaluations() {
+        return derivativeEvaluations;
+    }
+
+    /**
+     * Show the roots and the cost
+     * @return the textual representation of this result
+     */
+    public String toString() {
+        return Arrays.toString(roots) + " (" + brackets + " brackets, " + unconverged + " unconverged, "
+                + newtonSteps + " Newton and " + bisectionSteps + " bisection steps, " + evaluations + " evaluations, "
+                + derivativeEvaluations + " with derivative)";
+    }
+}
@@ -0,0 +1,430 @@
+package ritmath.tape;
+
+import ritmath.AbstractFunction;
+import ritmath.Constant;
+import ritmath.Cosine;
+import ritmath.Dual;
+import ritmath.MathFunction;
+import ritmath.NodeInfo;
+import ritmath.Polynomial;
+import ritmath.Product;
+import ritmath.Sine;
+import ritmath.Sum;
+import ritmath.Variable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A function tree flattened into postfix order: an array of opcodes and
+ * operands, a pool of constants, and a pool of nodes that have to be
+ * called rather than interpreted. Evaluation is one loop over the opcode
+ * array that pushes and pops values on a double[] frame, so no pointers
+ * into the tree are followed and nothing is allocated per node.
+ * A node shared by several parents is evaluated once, kept in a register
+ * at the top of the frame, and reloaded wherever it is used again.
+ *
+ * @author Key'Mon Jenkins
+ */
+public final class Tape implements MathFunction {
+
+    /** push constants[operand] */
+    static final int CONST = 0;
+    /** push x */
+    static final int VAR = 1;
+    /** pop operand values and push their sum */
+    static final int SUM = 2;
+    /** pop operand values and push their product */
+    static final int PROD = 3;
+    /** replace the top value with its sine */
+    static final int SIN = 4;
+    /** replace the top value with its cosine */
+    static final int COS = 5;
+    /** push calls[operand].evaluate(x) */
+    static final int CALL = 6;
+    /** copy the top value into register operand */
+    static final int STORE = 7;
+    /** push the value of register operand */
+    static final int LOAD = 8;
+    /**
+     * push the polynomial whose coefficients are the next operand values
+     * of constants, starting at the first operand, by Horner's scheme
+     */
+    static final int HORNER = 9;
+
+    private final MathFunction source;
+    private final int[] code;
+    private final double[] constants;
+    private final MathFunction[] calls;
+    private final int maxStack;
+    private final int frameSize;
+
+    /** each thread's frame for evaluate(double) */
+    private final ThreadLocal<double[]> frames;
+
+    private Tape(MathFunction source, int[] code, double[] constants, MathFunction[] calls,
+                 int maxStack, int registers) {
+        this.source = source;
+        this.code = code;
+        this.constants = constants;
+        this.calls = calls;
+        this.maxStack = maxStack;
+        this.frameSize = maxStack + registers;
+        this.frames = ThreadLocal.withInitial(this::newFrame);
+    }
+
+    /**
+     * Flatten a function tree into a tape
+     * @param f the function to flatten
+     * @return a tape that evaluates exactly like f
+     */
+    public static Tape of(MathFunction f) {
+        if (f instanceof Tape) {
+            return (Tape) f;
+        }
+        return new Recorder(f).record();
+    }
+
+    /**
+     * Make a frame big enough to evaluate this tape with
+     * evaluate(double, double[])
+     * @return a new scratch array
+     */
+    public double[] newFrame() {
+        return new double[frameSize];
+    }
+
+    /**
+     * How many opcodes and operands are on the tape
+     * @return the length of the code array
+     */
+    public int length() {
+        return code.length;
+    }
+
+    /**
+     * The tree this tape was recorded from
+     * @return the original function
+     */
+    public MathFunction getSource() {
+        return source;
+    }
+
+    /**
+     * Compute the value of this function without allocating
+     * @param x the value of the independent variable
+     * @param frame scratch space from newFrame(); its contents are overwritten
+     * @return the evaluation of the function at the given x
+     */
+    public double evaluate(double x, double[] frame) {
+        final int[] code = this.code;
+        final int registers = maxStack;
+        int sp = 0;
+        int pc = 0;
+        while (pc < code.length) {
+            switch (code[pc++]) {
+                case CONST:
+                    frame[sp++] = constants[code[pc++]];
+                    break;
+                case VAR:
+                    frame[sp++] = x;
+                    break;
+                case SUM: {
+                    int n = code[pc++];
+                    sp -= n;
+                    double sum = 0;
+                    for (int i = 0; i < n; i++) {
+                        sum += frame[sp + i];
+                    }
+                    frame[sp++] = sum;
+                    break;
+                }
+                case PROD: {
+                    int n = code[pc++];
+                    sp -= n;
+                    double prod = 1;
+                    for (int i = 0; i < n; i++) {
+                        prod *= frame[sp + i];
+                    }
+                    frame[sp++] = prod;
+                    break;
+                }
+                case SIN:
+                    frame[sp - 1] = Math.sin(frame[sp - 1]);
+                    break;
+                case COS:
+                    frame[sp - 1] = Math.cos(frame[sp - 1]);
+                    break;
+                case CALL:
+                    frame[sp++] = calls[code[pc++]].evaluate(x);
+                    break;
+                case STORE:
+                    frame[registers + code[pc++]] = frame[sp - 1];
+                    break;
+                case LOAD:
+                    frame[sp++] = frame[registers + code[pc++]];
+                    break;
+                case HORNER: {
+                    int start = code[pc++];
+                    int k = start + code[pc++] - 1;
+                    double value = constants[k];
+                    while (k > start) {
+                        value = value * x + constants[--k];
+                    }
+                    frame[sp++] = value;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("bad opcode at " + (pc - 1));
+            }
+        }
+        return frame[0];
+    }
+
+    /**
+     * Compute the value of this function, in a frame kept for the calling
+     * thread, so nothing is allocated after the thread's first call
+     * @param x the value of the independent variable
+     * @return the evaluation of the function at the given x
+     */
+    @Override
+    public double evaluate(double x) {
+        return evaluate(x, frames.get());
+    }
+
+    /**
+     * Compute the value of this function at a run of points, reusing the
+     * calling thread's frame for all of them
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param out where the results go
+     * @param outOffset index in out where the first result is stored
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluate(double[] xs, int xOffset, double[] out, int outOffset, int length) {
+        double[] frame = frames.get();
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = evaluate(xs[xOffset + i], frame);
+        }
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at once
+     * @param x the value of the independent variable
+     * @return the source function's answer
+     */
+    @Override
+    public Dual evaluateWithDerivative(double x) {
+        return source.evaluateWithDerivative(x);
+    }
+
+    /**
+     * Compute the value of this function and of its derivative at a run
+     * of points, using the source function's batch form
+     * @param xs the values of the independent variable
+     * @param xOffset index in xs of the first point to evaluate
+     * @param values where the values of the function go
+     * @param derivatives where the values of the derivative go
+     * @param outOffset index in values and derivatives of the first result
+     * @param length how many points to evaluate
+     */
+    @Override
+    public void evaluateWithDerivative(double[] xs, int xOffset, double[] values, double[] derivatives,
+                                       int outOffset, int length) {
+        source.evaluateWithDerivative(xs, xOffset, values, derivatives, outOffset, length);
+    }
+
+    /**
+     * Is this function a constant value?
+     * @return the source function's answer
+     */
+    @Override
+    public boolean isConstant() {
+        return source.isConstant();
+    }
+
+    /**
+     * Facts about the structure of the source function
+     * @return the source function's answer
+     */
+    @Override
+    public NodeInfo info() {
+        return source.info();
+    }
+
+    /**
+     * Create a new function that is the derivative of this one. The
+     * derivative is a tree; pass it to Tape.of if needed
+     * @return the source function's derivative
+     */
+    @Override
+    public MathFunction derivative() {
+        return source.derivative();
+    }
+
+    /**
+     * Compute the integral of this function. The source function is used
+     * so that closed-form integrals of its nodes are kept
+     * @param lower the starting point of the integral's interval
+     * @param upper the ending point of the integral's interval
+     * @param accuracy the number of sections into which the interval
+     *                 should be divided for the calculation (may not
+     *                 be used if the function has a closed form integral)
+     * @return the integral result as a double
+     */
+    @Override
+    public double integral(double lower, double upper, int accuracy) {
+        return source.integral(lower, upper, accuracy);
+    }
+
+    /**
+     * Display the function the same way its source does
+     * @return the textual representation of this function
+     */
+    @Override
+    public String toString() {
+        return source.toString();
+    }
+
+    /**
+     * Write the function the same way its source does
+     * @param out where the text goes
+     * @throws IOException if out does
+     */
+    @Override
+    public void writeTo(Appendable out) throws IOException {
+        source.writeTo(out);
+    }
+
+    /**
+     * Walks a tree in postfix order and writes its tape
+     */
+    private static class Recorder {
+        private final MathFunction root;
+        private final Map<MathFunction, Integer> uses = new IdentityHashMap<>();
+        private final Map<MathFunction, Integer> registers = new IdentityHashMap<>();
+        private final List<MathFunction> calls = new ArrayList<>();
+        private final Map<MathFunction, Integer> callIndex = new IdentityHashMap<>();
+        private int[] code = new int[64];
+        private int length;
+        private double[] constants = new double[16];
+        private int numConstants;
+        private int stack;
+        private int maxStack;
+
+        Recorder(MathFunction root) {
+            this.root = root;
+        }
+
+        Tape record() {
+            count(root);
+            emit(root);
+            return new Tape(root, Arrays.copyOf(code, length), Arrays.copyOf(constants, numConstants),
+                    calls.toArray(new MathFunction[0]), Math.max(maxStack, 1), registers.size());
+        }
+
+        private static boolean isInterior(MathFunction f) {
+            return f instanceof Sum || f instanceof Product || f instanceof Sine || f instanceof Cosine;
+        }
+
+        private void count(MathFunction f) {
+            Integer n = uses.get(f);
+            uses.put(f, n == null ? 1 : n + 1);
+            if (n == null && isInterior(f)) {
+                AbstractFunction node = (AbstractFunction) f;
+                for (int i = 0; i < node.numChildren(); i++) {
+                    count(node.get(i));
+                }
+            }
+        }
+
+        private void op(int opcode) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length++] = opcode;
+        }
+
+        private void op(int opcode, int operand) {
+            op(opcode);
+            op(operand);
+        }
+
+        /**
+         * Add a value to the constant pool
+         * @return its index
+         */
+        private int constant(double value) {
+            if (numConstants == constants.length) {
+                constants = Arrays.copyOf(constants, numConstants * 2);
+            }
+            constants[numConstants] = value;
+            return numConstants++;
+        }
+
+        private void push() {
+            stack++;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void emit(MathFunction f) {
+            Integer register = registers.get(f);
+            if (register != null) {
+                op(LOAD, register);
+                push();
+                return;
+            }
+            if (f instanceof Constant) {
+                op(CONST, constant(f.evaluate(0)));
+                push();
+                return;
+            }
+            if (f instanceof Variable) {
+                op(VAR);
+                push();
+                return;
+            }
+            if (f instanceof Sum || f instanceof Product) {
+                AbstractFunction node = (AbstractFunction) f;
+                for (int i = 0; i < node.numChildren(); i++) {
+                    emit(node.get(i));
+                }
+                op(f instanceof Sum ? SUM : PROD, node.numChildren());
+                stack -= node.numChildren();
+                push();
+            } else if (f instanceof Sine || f instanceof Cosine) {
+                emit(((AbstractFunction) f).get(0));
+                op(f instanceof Sine ? SIN : COS);
+            } else if (f instanceof Polynomial) {
+                Polynomial poly = (Polynomial) f;
+                int start = numConstants;
+                for (int k = 0; k <= poly.degree(); k++) {
+                    constant(poly.coefficient(k));
+                }
+                op(HORNER, start);
+                op(poly.degree() + 1);
+                push();
+            } else {
+                Integer index = callIndex.get(f);
+                if (index == null) {
+                    index = calls.size();
+                    callIndex.put(f, index);
+                    calls.add(f);
+                }
+                op(CALL, index);
+                push();
+                return;
+            }
+            if (uses.get(f) > 1) {
+                int slot = registers.size();
+                registers.put(f, slot);
+                op(STORE, slot);
+            }
+        }
+    }
+}
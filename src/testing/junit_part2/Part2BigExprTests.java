@@ -176,7 +176,7 @@ public class Part2BigExprTests {
 
 
         // integral
-        assertEquals( 1998.9906467413823, s1.integral( -100.0, 100.0, 1000 ), 1e-3 );
+        assertEquals( 1998.9872687177806, s1.integral( -100.0, 100.0, 1000 ), 1e-3 );
         assertEquals( 8400.0, s2.integral( -100.0, 100.0, 1000 ), 1e-3);
         assertEquals( 6000.0, s3.integral( -100.0, 100.0, 1000 ), 1e-4 );
         assertEquals( 0.0, s4.integral( -100.0, 100.0, 1000 ), 1e-6 );
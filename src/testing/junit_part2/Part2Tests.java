@@ -350,7 +350,7 @@ public class Part2Tests {
         derivs.put( "S1C", "0.0" );
         derivs.put( "S2C", "0.0" );
         derivs.put( "Sn2X", "( cos( ( x + x ) ) * 2.0 )" );
-        derivs.put( "P2XC", "( ( x * 3.0 ) + ( x * 3.0 ) )" );
+        derivs.put( "P2XC", "( x * 6.0 )" );
         derivs.put( "SnC", "0.0" );
         derivs.put( "CsX", "( sin( x ) * -1.0 )" );
         derivs.put( "CsSn", "( sin( sin( x ) ) * cos( x ) * -1.0 )" );
@@ -358,7 +358,7 @@ public class Part2Tests {
         derivs.put( "C0", "0.0" );
         derivs.put( "CsSP", "( sin( ( ( x * -2.0 ) + 3.0 ) ) * 2.0 )" );
         derivs.put( "C3", "0.0" );
-        derivs.put( "SnX2", "( cos( ( x * x ) ) * ( x + x ) )" );
+        derivs.put( "SnX2", "( cos( ( x * x ) ) * ( x * 2.0 ) )" );
         derivs.put( "PC", "0.0" );
         derivs.put( "PX5C", "36.0" );
         derivs.put( "SX5C", "1.0" );
@@ -391,25 +391,25 @@ public class Part2Tests {
         integs.get( "S2C" ).add( 4.0000000000 ); // 1.000000 to 5.000000 for 1000
         integs.get( "S2C" ).add( 6.0000000000 ); // -3.000000 to 3.000000 for 1000
         integs.put( "Sn2X", new LinkedList<>() );
-        integs.get( "Sn2X" ).add( 0.1643002545 ); // 1.000000 to 5.000000 for 5
+        integs.get( "Sn2X" ).add( 0.2114623463 ); // 1.000000 to 5.000000 for 5
         integs.get( "Sn2X" ).add( -0.0000000000 ); // -3.000000 to 3.000000 for 5
-        integs.get( "Sn2X" ).add( 0.2114612185 ); // 1.000000 to 5.000000 for 1000
+        integs.get( "Sn2X" ).add( 0.2114623463 ); // 1.000000 to 5.000000 for 1000
         integs.get( "Sn2X" ).add( 0.0000000000 ); // -3.000000 to 3.000000 for 1000
         integs.put( "P2XC", new LinkedList<>() );
-        integs.get( "P2XC" ).add( 125.2800000000 ); // 1.000000 to 5.000000 for 5
-        integs.get( "P2XC" ).add( 58.3200000000 ); // -3.000000 to 3.000000 for 5
-        integs.get( "P2XC" ).add( 124.0000320000 ); // 1.000000 to 5.000000 for 1000
-        integs.get( "P2XC" ).add( 54.0001080000 ); // -3.000000 to 3.000000 for 1000
+        integs.get( "P2XC" ).add( 124.0000000000 ); // 1.000000 to 5.000000 for 5
+        integs.get( "P2XC" ).add( 54.0000000000 ); // -3.000000 to 3.000000 for 5
+        integs.get( "P2XC" ).add( 124.0000000000 ); // 1.000000 to 5.000000 for 1000
+        integs.get( "P2XC" ).add( 54.0000000000 ); // -3.000000 to 3.000000 for 1000
         integs.put( "SnC", new LinkedList<>() );
         integs.get( "SnC" ).add( 0.0000000000 ); // 1.000000 to 5.000000 for 5
         integs.get( "SnC" ).add( 0.0000000000 ); // -3.000000 to 3.000000 for 5
         integs.get( "SnC" ).add( 0.0000000000 ); // 1.000000 to 5.000000 for 1000
         integs.get( "SnC" ).add( 0.0000000000 ); // -3.000000 to 3.000000 for 1000
         integs.put( "CsX", new LinkedList<>() );
-        integs.get( "CsX" ).add( -1.7033340931 ); // 1.000000 to 5.000000 for 5
-        integs.get( "CsX" ).add( 0.2475294526 ); // -3.000000 to 3.000000 for 5
-        integs.get( "CsX" ).add( -1.8003928589 ); // 1.000000 to 5.000000 for 1000
-        integs.get( "CsX" ).add( 0.2822391694 ); // -3.000000 to 3.000000 for 1000
+        integs.get( "CsX" ).add( -1.8003952595 ); // 1.000000 to 5.000000 for 5
+        integs.get( "CsX" ).add( 0.2822400161 ); // -3.000000 to 3.000000 for 5
+        integs.get( "CsX" ).add( -1.8003952595 ); // 1.000000 to 5.000000 for 1000
+        integs.get( "CsX" ).add( 0.2822400161 ); // -3.000000 to 3.000000 for 1000
         integs.put( "CsSn", new LinkedList<>() );
         integs.get( "CsSn" ).add( 2.9309591866 ); // 1.000000 to 5.000000 for 5
         integs.get( "CsSn" ).add( 4.5646344325 ); // -3.000000 to 3.000000 for 5
@@ -426,10 +426,10 @@ public class Part2Tests {
         integs.get( "C0" ).add( 0.0000000000 ); // 1.000000 to 5.000000 for 1000
         integs.get( "C0" ).add( 0.0000000000 ); // -3.000000 to 3.000000 for 1000
         integs.put( "CsSP", new LinkedList<>() );
-        integs.get( "CsSP" ).add( 0.5821295534 ); // 1.000000 to 5.000000 for 5
-        integs.get( "CsSP" ).add( 0.1290526939 ); // -3.000000 to 3.000000 for 5
-        integs.get( "CsSP" ).add( 0.7492247959 ); // 1.000000 to 5.000000 for 1000
-        integs.get( "CsSP" ).add( 0.2766159272 ); // -3.000000 to 3.000000 for 1000
+        integs.get( "CsSP" ).add( 0.7492287918 ); // 1.000000 to 5.000000 for 5
+        integs.get( "CsSP" ).add( 0.2766192467 ); // -3.000000 to 3.000000 for 5
+        integs.get( "CsSP" ).add( 0.7492287918 ); // 1.000000 to 5.000000 for 1000
+        integs.get( "CsSP" ).add( 0.2766192467 ); // -3.000000 to 3.000000 for 1000
         integs.put( "C3", new LinkedList<>() );
         integs.get( "C3" ).add( 12.0000000000 ); // 1.000000 to 5.000000 for 5
         integs.get( "C3" ).add( 18.0000000000 ); // -3.000000 to 3.000000 for 5
@@ -476,9 +476,9 @@ public class Part2Tests {
         integs.get( "PXC" ).add( 36.0000000000 ); // 1.000000 to 5.000000 for 1000
         integs.get( "PXC" ).add( 0.0000000000 ); // -3.000000 to 3.000000 for 1000
         integs.put( "SnX", new LinkedList<>() );
-        integs.get( "SnX" ).add( 0.2428043867 ); // 1.000000 to 5.000000 for 5
+        integs.get( "SnX" ).add( 0.2566401204 ); // 1.000000 to 5.000000 for 5
         integs.get( "SnX" ).add( -0.0000000000 ); // -3.000000 to 3.000000 for 5
-        integs.get( "SnX" ).add( 0.2566397782 ); // 1.000000 to 5.000000 for 1000
+        integs.get( "SnX" ).add( 0.2566401204 ); // 1.000000 to 5.000000 for 1000
         integs.get( "SnX" ).add( 0.0000000000 ); // -3.000000 to 3.000000 for 1000
         integs.put( "S0", new LinkedList<>() );
         integs.get( "S0" ).add( 0.0000000000 ); // 1.000000 to 5.000000 for 5
@@ -0,0 +1,69 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The batch evaluate methods must agree exactly with evaluate(double)
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class BatchEvaluateTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    private static MathFunction bigExpr() {
+        return FunctionFactory.sum(
+                FunctionFactory.product(
+                        X, FunctionFactory.constant( 10 ), FunctionFactory.cosine( X )
+                ),
+                FunctionFactory.product(
+                        FunctionFactory.sine( FunctionFactory.product( X, X ) ),
+                        FunctionFactory.sum( X, FunctionFactory.constant( -3 ) )
+                ),
+                FunctionFactory.cosine( FunctionFactory.sine( X ) ),
+                FunctionFactory.constant( 7 )
+        );
+    }
+
+    private static double[] grid( int n ) {
+        double[] xs = new double[ n ];
+        for ( int i = 0; i < n; i++ ) {
+            xs[ i ] = -50 + 100.0 * i / n;
+        }
+        return xs;
+    }
+
+    @Test
+    public void t1WholeArray() {
+        MathFunction[] fs = {
+                FunctionFactory.constant( 4 ), X, FunctionFactory.sine( X ),
+                FunctionFactory.sum(), FunctionFactory.product(), bigExpr()
+        };
+        double[] xs = grid( 3000 );
+        double[] out = new double[ xs.length ];
+        for ( MathFunction f: fs ) {
+            f.evaluate( xs, out );
+            for ( int i = 0; i < xs.length; i++ ) {
+                assertEquals( f.evaluate( xs[ i ] ), out[ i ], f + " at " + xs[ i ] );
+            }
+        }
+    }
+
+    @Test
+    public void t2Offsets() {
+        MathFunction f = bigExpr();
+        double[] xs = grid( 2500 );
+        double[] out = new double[ 2600 ];
+        f.evaluate( xs, 17, out, 90, 2400 );
+        for ( int i = 0; i < 2400; i++ ) {
+            assertEquals( f.evaluate( xs[ 17 + i ] ), out[ 90 + i ] );
+        }
+        assertEquals( 0.0, out[ 89 ] );
+        assertEquals( 0.0, out[ 2490 ] );
+    }
+}
@@ -0,0 +1,105 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.io.BinaryCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writing functions out in binary and reading them back
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class BinaryCodecTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    private static MathFunction expr() {
+        MathFunction s = FunctionFactory.sine( FunctionFactory.product( X, X ) );
+        return FunctionFactory.sum(
+                FunctionFactory.product( X, FunctionFactory.constant( 0.25 ),
+                                         FunctionFactory.cosine( s ) ),
+                FunctionFactory.product( s, s, FunctionFactory.constant( Double.NaN ) ),
+                FunctionFactory.polynomial( 1, 2, 3, 4 ),
+                FunctionFactory.constant( 2.5 )
+        );
+    }
+
+    @Test
+    public void t1RoundTrip() throws IOException {
+        MathFunction f = expr();
+        byte[] bytes = BinaryCodec.encode( f );
+        assertSame( f, BinaryCodec.decode( bytes ) );
+
+        // shared subtrees are written once, so a derivative DAG stays small
+        MathFunction d = f.derivative().derivative().derivative().derivative();
+        byte[] encoded = BinaryCodec.encode( d );
+        assertSame( d, BinaryCodec.decode( encoded ) );
+        assertTrue( encoded.length * 10 < d.toString().length() );
+
+        ByteBuffer buffer = ByteBuffer.allocate( bytes.length + 3 );
+        buffer.put( ( byte ) 7 ).put( bytes ).put( ( byte ) 1 ).put( ( byte ) 2 ).flip();
+        buffer.get();
+        assertSame( f, BinaryCodec.decode( buffer ) );
+        assertEquals( 2, buffer.remaining() );
+
+        Path file = Files.createTempFile( "ritmath", ".bin" );
+        try {
+            Files.write( file, encoded );
+            assertSame( d, BinaryCodec.decode( file ) );
+        } finally {
+            Files.delete( file );
+        }
+    }
+
+    @Test
+    public void t2Corrupt() {
+        byte[] bytes = BinaryCodec.encode( expr() );
+        assertThrows( IllegalArgumentException.class,
+                      () -> BinaryCodec.decode( Arrays.copyOf( bytes, bytes.length - 1 ) ) );
+        byte[] version = bytes.clone();
+        version[ 4 ] = ( byte ) ( BinaryCodec.VERSION + 1 );
+        assertThrows( IllegalArgumentException.class, () -> BinaryCodec.decode( version ) );
+        byte[] magic = bytes.clone();
+        magic[ 0 ] = 'X';
+        assertThrows( IllegalArgumentException.class, () -> BinaryCodec.decode( magic ) );
+    }
+
+    @Test
+    public void t3BadCounts() {
+        byte[] header = Arrays.copyOf( BinaryCodec.encode( X ), 5 );
+
+        // 0x7fffffff nodes, which would not be allocated for
+        byte[] nodes = Arrays.copyOf( header, 12 );
+        System.arraycopy( new byte[]{ ( byte ) 0xff, ( byte ) 0xff, ( byte ) 0xff, ( byte ) 0xff, 0x07 },
+                          0, nodes, 5, 5 );
+        assertThrows( IllegalArgumentException.class, () -> BinaryCodec.decode( nodes ) );
+
+        // one node, a sum of -1 children
+        byte[] children = Arrays.copyOf( header, 12 );
+        children[ 5 ] = 1;
+        children[ 6 ] = 2;
+        System.arraycopy( new byte[]{ ( byte ) 0xff, ( byte ) 0xff, ( byte ) 0xff, ( byte ) 0xff, 0x0f },
+                          0, children, 7, 5 );
+        assertThrows( IllegalArgumentException.class, () -> BinaryCodec.decode( children ) );
+
+        // one node, a polynomial with more coefficients than bytes left
+        byte[] coefficients = Arrays.copyOf( header, 24 );
+        coefficients[ 5 ] = 1;
+        coefficients[ 6 ] = 6;
+        coefficients[ 7 ] = 3;
+        assertThrows( IllegalArgumentException.class, () -> BinaryCodec.decode( coefficients ) );
+    }
+}
@@ -0,0 +1,87 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.approx.ChebyshevProxy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Polynomial stand-ins for functions on an interval
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class ChebyshevTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    private static double maxError( MathFunction expected, MathFunction actual, double a, double b ) {
+        double error = 0;
+        for ( int i = 0; i <= 20000; i++ ) {
+            double x = a + ( b - a ) * i / 20000;
+            error = Math.max( error, Math.abs( expected.evaluate( x ) - actual.evaluate( x ) ) );
+        }
+        return error;
+    }
+
+    @Test
+    public void t1Fit() {
+        MathFunction f = FunctionFactory.sum(
+                FunctionFactory.product(
+                        FunctionFactory.sine( FunctionFactory.product( X, FunctionFactory.constant( 3 ) ) ),
+                        FunctionFactory.cosine( X ) ),
+                FunctionFactory.sine( FunctionFactory.product( X, X ) ),
+                FunctionFactory.constant( 0.5 )
+        );
+        for ( double tol : new double[]{ 1e-4, 1e-8, 1e-12 } ) {
+            ChebyshevProxy p = ChebyshevProxy.fit( f, -2, 3, tol );
+            assertEquals( 1, p.getPieces() );
+            assertTrue( maxError( f, p, -2, 3 ) <= 2 * tol );
+            assertTrue( p.getFitEvaluations() < 1000 );
+        }
+        ChebyshevProxy quadratic = ChebyshevProxy.fit( FunctionFactory.polynomial( 1, 2, 3 ), 5, -5, 1e-9 );
+        assertEquals( 2, quadratic.getDegree() );
+        assertEquals( -5.0, quadratic.getLower() );
+        assertEquals( 86.0, quadratic.evaluate( 5 ), 1e-12 );
+        ChebyshevProxy constant = ChebyshevProxy.fit( FunctionFactory.constant( 2 ), 0, 1, 1e-9 );
+        assertTrue( constant.isConstant() );
+        assertEquals( 2.0, constant.evaluate( 0.3 ), 1e-15 );
+    }
+
+    @Test
+    public void t2Calculus() {
+        ChebyshevProxy p = ChebyshevProxy.fit( FunctionFactory.sine( X ), -1, 9, 1e-13 );
+        assertSame( p.derivative(), p.derivative() );
+        assertTrue( maxError( FunctionFactory.cosine( X ), p.derivative(), -1, 9 ) < 1e-10 );
+        MathFunction minusSine = FunctionFactory.product( FunctionFactory.sine( X ), FunctionFactory.constant( -1 ) );
+        assertTrue( maxError( minusSine, p.derivative().derivative(), -1, 9 ) < 1e-8 );
+        assertEquals( Math.cos( 0.5 ) - Math.cos( 8 ), p.integral( 0.5, 8, 0 ), 1e-12 );
+        assertEquals( Math.cos( 8 ) - Math.cos( 0.5 ), p.integral( 8, 0.5, 0 ), 1e-12 );
+        ChebyshevProxy cubic = ChebyshevProxy.fit( FunctionFactory.polynomial( 0, 0, 0, 4 ), 0, 2, 1e-9 );
+        assertEquals( 16.0, cubic.integral( 0, 2, 0 ), 1e-12 );
+        assertEquals( 12.0, cubic.derivative().evaluate( 1 ), 1e-11 );
+    }
+
+    @Test
+    public void t3Pieces() {
+        MathFunction f = FunctionFactory.sine( FunctionFactory.product( X, FunctionFactory.constant( 50 ) ) );
+        ChebyshevProxy p = ChebyshevProxy.fit( f, -2, 18, 1e-10 );
+        assertTrue( p.getPieces() > 1 );
+        assertTrue( p.getDegree() <= ChebyshevProxy.MAX_DEGREE );
+        assertTrue( maxError( f, p, -2, 18 ) <= 2e-10 );
+        assertEquals( f.integral( -1, 17, 0 ), p.integral( -1, 17, 0 ), 1e-10 );
+    }
+
+    @Test
+    public void t4BadInput() {
+        assertThrows( IllegalArgumentException.class, () -> ChebyshevProxy.fit( X, 1, 1, 1e-6 ) );
+        assertThrows( IllegalArgumentException.class, () -> ChebyshevProxy.fit( X, 0, 1, 0 ) );
+        MathFunction huge = FunctionFactory.product( X, FunctionFactory.constant( Double.MAX_VALUE ) );
+        assertThrows( IllegalArgumentException.class, () -> ChebyshevProxy.fit( huge, 0, 3, 1e-6 ) );
+    }
+}
@@ -0,0 +1,75 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.compile.CompiledFunction;
+import ritmath.compile.FunctionCompiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiled functions must evaluate exactly like the trees they came from
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class CompilerTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    private static MathFunction expr( double c ) {
+        MathFunction s = FunctionFactory.sine( FunctionFactory.product( X, X ) );
+        return FunctionFactory.sum(
+                FunctionFactory.product( X, FunctionFactory.constant( c ),
+                                         FunctionFactory.cosine( X ) ),
+                s,
+                FunctionFactory.product( s, s, FunctionFactory.constant( -2 ) )
+        );
+    }
+
+    private static void assertSameValues( MathFunction expected, MathFunction actual ) {
+        for ( double x = -20; x < 20; x += 0.173 ) {
+            assertEquals( expected.evaluate( x ), actual.evaluate( x ), "at " + x );
+        }
+    }
+
+    @Test
+    public void t1Evaluate() {
+        MathFunction f = expr( 10 );
+        MathFunction c = FunctionFactory.constant( 4 );
+        assertTrue( FunctionCompiler.compile( f ) instanceof CompiledFunction );
+        assertSameValues( f, FunctionCompiler.compile( f ) );
+        assertSameValues( f.derivative(), FunctionCompiler.compile( f.derivative() ) );
+        assertSameValues( X, FunctionCompiler.compile( X ) );
+        assertSameValues( c, FunctionCompiler.compile( c ) );
+        assertEquals( f.toString(), FunctionCompiler.compile( f ).toString() );
+    }
+
+    @Test
+    public void t2Cache() {
+        FunctionCompiler.compile( expr( 3 ) );
+        int size = FunctionCompiler.cacheSize();
+        MathFunction again = FunctionCompiler.compile( expr( 3 ) );
+        assertEquals( size, FunctionCompiler.cacheSize() );
+        assertSameValues( expr( 3 ), again );
+        // only the constants differ, and they are not part of the shape
+        MathFunction other = FunctionCompiler.compile( expr( 5 ) );
+        assertEquals( size, FunctionCompiler.cacheSize() );
+        assertSame( again.getClass(), other.getClass() );
+        assertSameValues( expr( 5 ), other );
+    }
+
+    @Test
+    public void t3CacheBound() {
+        MathFunction f = X;
+        for ( int i = 0; i < FunctionCompiler.MAX_CACHED_CLASSES + 20; i++ ) {
+            f = FunctionFactory.sum( FunctionFactory.sine( f ), X );
+            FunctionCompiler.compile( f );
+        }
+        assertEquals( FunctionCompiler.MAX_CACHED_CLASSES, FunctionCompiler.cacheSize() );
+        assertSameValues( f, FunctionCompiler.compile( f ) );
+    }
+}
@@ -0,0 +1,73 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.Dual;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.ad.TaylorEvaluator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Derivatives computed without building derivative functions must agree
+ * with the ones that are built
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class DifferentiationTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    private static MathFunction expr() {
+        MathFunction s = FunctionFactory.sine( FunctionFactory.product( X, X ) );
+        return FunctionFactory.sum(
+                FunctionFactory.product( X, FunctionFactory.constant( 10 ),
+                                         FunctionFactory.cosine( X ) ),
+                s,
+                FunctionFactory.product( s, s, X ),
+                FunctionFactory.constant( 3 )
+        );
+    }
+
+    private static double tolerance( double expected ) {
+        return 1e-12 * ( 1 + Math.abs( expected ) );
+    }
+
+    @Test
+    public void t1Dual() {
+        MathFunction f = expr();
+        MathFunction df = f.derivative();
+        double[] xs = new double[ 1500 ];
+        for ( int i = 0; i < xs.length; i++ ) {
+            xs[ i ] = -7 + i * 0.01;
+        }
+        double[] values = new double[ xs.length ];
+        double[] derivs = new double[ xs.length ];
+        f.evaluateWithDerivative( xs, values, derivs );
+        for ( int i = 0; i < xs.length; i++ ) {
+            Dual d = f.evaluateWithDerivative( xs[ i ] );
+            assertEquals( f.evaluate( xs[ i ] ), d.getValue() );
+            assertEquals( df.evaluate( xs[ i ] ), d.getDerivative(), tolerance( d.getDerivative() ) );
+            assertEquals( d.getValue(), values[ i ] );
+            assertEquals( d.getDerivative(), derivs[ i ] );
+        }
+    }
+
+    @Test
+    public void t2Taylor() {
+        MathFunction f = expr();
+        double[] d = TaylorEvaluator.derivatives( f, 0.7, 5 );
+        MathFunction g = f;
+        for ( int k = 0; k <= 5; k++ ) {
+            double expected = g.evaluate( 0.7 );
+            assertEquals( expected, d[ k ], tolerance( expected ), "derivative " + k );
+            g = g.derivative();
+        }
+        double[] c = TaylorEvaluator.coefficients( FunctionFactory.sine( X ), 0, 7 );
+        double[] sine = { 0, 1, 0, -1.0 / 6, 0, 1.0 / 120, 0, -1.0 / 5040 };
+        for ( int k = 0; k < sine.length; k++ ) {
+            assertEquals( sine[ k ], c[ k ], 1e-15 );
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.solve.Extrema;
+import ritmath.solve.ExtremaResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Finding the minima and maxima of a function in an interval
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class ExtremaTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    @Test
+    public void t1Sine() {
+        ExtremaResult result = Extrema.find( FunctionFactory.sine( X ), 10, 0 );
+        double[] maxima = result.getMaxima();
+        double[] minima = result.getMinima();
+        assertEquals( 2, maxima.length );
+        assertEquals( 1, minima.length );
+        assertEquals( Math.PI / 2, maxima[ 0 ], 1e-12 );
+        assertEquals( 5 * Math.PI / 2, maxima[ 1 ], 1e-12 );
+        assertEquals( 3 * Math.PI / 2, minima[ 0 ], 1e-12 );
+        assertEquals( 1, result.getMax(), 1e-15 );
+        assertEquals( -1, result.getMin(), 1e-15 );
+        assertEquals( 3 * Math.PI / 2, result.getArgMin(), 1e-12 );
+        assertEquals( 0, result.getFallbacks() );
+        // one scan of f' plus a few steps per extremum
+        assertTrue( result.getDerivativeEvaluations() < Extrema.DEFAULT_SCAN_POINTS + 100 );
+        assertTrue( result.getEvaluations() < 20 );
+    }
+
+    @Test
+    public void t2ManyExtrema() {
+        MathFunction f = FunctionFactory.sum(
+                FunctionFactory.product(
+                        FunctionFactory.sine( FunctionFactory.product( X, FunctionFactory.constant( 7 ) ) ),
+                        FunctionFactory.cosine( FunctionFactory.product( X, X ) ) ),
+                FunctionFactory.constant( 0.3 )
+        );
+        ExtremaResult result = Extrema.find( f, -5, 5 );
+        double[] maxima = result.getMaxima();
+        double[] minima = result.getMinima();
+        assertTrue( maxima.length > 15 );
+        assertTrue( Math.abs( maxima.length - minima.length ) <= 1 );
+        for ( int i = 1; i < maxima.length; i++ ) {
+            assertTrue( maxima[ i ] > maxima[ i - 1 ] );
+        }
+        // dense sampling neither beats the extremes found nor comes close in cost
+        int n = 1 << 20;
+        double[] xs = new double[ n ];
+        double[] values = new double[ n ];
+        for ( int i = 0; i < n; i++ ) {
+            xs[ i ] = -5 + 10.0 * i / ( n - 1 );
+        }
+        f.evaluate( xs, values );
+        double max = Double.NEGATIVE_INFINITY;
+        double min = Double.POSITIVE_INFINITY;
+        for ( double v : values ) {
+            max = Math.max( max, v );
+            min = Math.min( min, v );
+        }
+        assertTrue( result.getMax() >= max - 1e-15 );
+        assertTrue( result.getMin() <= min + 1e-15 );
+        assertEquals( result.getMax(), f.evaluate( result.getArgMax() ), 0 );
+        assertTrue( 100 * ( result.getEvaluations() + result.getDerivativeEvaluations() ) < n );
+    }
+
+    @Test
+    public void t3EdgeCases() {
+        // ( x - 1 ) ^ 2 has one minimum; x ^ 3 has a critical point but no extremum
+        ExtremaResult square = Extrema.find( FunctionFactory.polynomial( 1, -2, 1 ), -3, 3 );
+        assertEquals( 1, square.getMinima().length );
+        assertEquals( 0, square.getMaxima().length );
+        assertEquals( 1, square.getArgMin(), 1e-12 );
+        assertEquals( -3, square.getArgMax(), 0 );
+        ExtremaResult cube = Extrema.find( FunctionFactory.power( 3 ), -1, 1 );
+        assertEquals( 0, cube.getMinima().length + cube.getMaxima().length );
+        assertEquals( -1, cube.getArgMin(), 0 );
+        assertEquals( 1, cube.getArgMax(), 0 );
+        ExtremaResult constant = Extrema.find( FunctionFactory.constant( 2 ), -1, 1 );
+        assertEquals( 2, constant.getMin(), 0 );
+        assertEquals( 2, constant.getMax(), 0 );
+    }
+}
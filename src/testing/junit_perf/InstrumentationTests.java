@@ -0,0 +1,119 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.instrument.Allocations;
+import ritmath.instrument.Instrumentation;
+import ritmath.instrument.InstrumentationSnapshot;
+import ritmath.instrument.InstrumentedFunction;
+import ritmath.instrument.SubtreeStats;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counting the calls made on an instrumented function
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class InstrumentationTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    private static SubtreeStats statsOf( InstrumentationSnapshot snapshot, MathFunction f ) {
+        for ( SubtreeStats s : snapshot.getSubtrees() ) {
+            if ( s.getFunction() == f ) {
+                return s;
+            }
+        }
+        throw new AssertionError( "no counts for " + f );
+    }
+
+    @Test
+    public void t1SameResults() {
+        MathFunction f = FunctionFactory.sum(
+                FunctionFactory.product( FunctionFactory.sine( X ), FunctionFactory.cosine( X ),
+                        FunctionFactory.constant( 3 ) ),
+                FunctionFactory.sine( FunctionFactory.product( X, FunctionFactory.cosine( X ) ) ),
+                FunctionFactory.polynomial( 1, -2, 0.5 ),
+                FunctionFactory.constant( 0.1 )
+        );
+        InstrumentedFunction g = Instrumentation.instrument( f );
+        assertSame( g, Instrumentation.instrument( g ) );
+        for ( int i = -1000; i <= 1000; i++ ) {
+            double x = i * 0.0137;
+            assertEquals( f.evaluate( x ), g.evaluate( x ) );
+        }
+        double[] xs = { -3, -0.5, 0, 0.25, 7 };
+        double[] expected = new double[ xs.length ];
+        double[] actual = new double[ xs.length ];
+        f.evaluate( xs, expected );
+        g.evaluate( xs, actual );
+        for ( int i = 0; i < xs.length; i++ ) {
+            assertEquals( expected[ i ], actual[ i ] );
+        }
+        assertEquals( f.integral( -2, 3, 1000 ), g.integral( -2, 3, 1000 ) );
+        assertEquals( f.toString(), g.toString() );
+        assertEquals( f.derivative().toString(), g.derivative().toString() );
+        assertEquals( f.derivative().evaluate( 1.5 ), g.derivative().evaluate( 1.5 ) );
+    }
+
+    @Test
+    public void t2Counts() {
+        MathFunction sine = FunctionFactory.sine( X );
+        MathFunction product = FunctionFactory.product( sine, FunctionFactory.cosine( X ) );
+        MathFunction f = FunctionFactory.sum( sine, product );
+        InstrumentedFunction g = Instrumentation.instrument( f );
+        Instrumentation.reset();
+        for ( int i = 0; i < 1000; i++ ) {
+            g.evaluate( i );
+        }
+        MathFunction d = g.derivative();
+        assertSame( d, g.derivative() );
+        g.integral( 0, 1, 10 );
+
+        InstrumentationSnapshot snapshot = Instrumentation.snapshot();
+        SubtreeStats root = statsOf( snapshot, f );
+        assertEquals( 1000, root.getEvaluations() );
+        assertEquals( 2, root.getDerivatives() );
+        assertEquals( 1, root.getIntegrals() );
+        assertEquals( 1000, statsOf( snapshot, product ).getEvaluations() );
+        // sin( x ) is shared by the sum and the product
+        assertEquals( 2000, statsOf( snapshot, sine ).getEvaluations() );
+        assertEquals( 1, statsOf( snapshot, sine ).getIntegrals() );
+        assertEquals( 2000, snapshot.getEvaluations().get( "Sine" ).longValue() );
+        assertEquals( 1000, snapshot.getEvaluations().get( "Cosine" ).longValue() );
+        assertTrue( root.getSamples() <= root.getEvaluations() );
+        assertTrue( root.toString().endsWith( f.toString() ) );
+
+        Instrumentation.reset();
+        assertEquals( 0, statsOf( Instrumentation.snapshot(), f ).getEvaluations() );
+    }
+
+    @Test
+    public void t3MBean() throws Exception {
+        InstrumentedFunction g = Instrumentation.instrument(
+                FunctionFactory.cosine( FunctionFactory.product( X, FunctionFactory.constant( 2 ) ) ) );
+        ObjectName name = Instrumentation.registerMBean();
+        assertEquals( name, Instrumentation.registerMBean() );
+        Instrumentation.reset();
+        g.evaluate( 1 );
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertTrue( ( Integer ) server.getAttribute( name, "InstrumentedTrees" ) >= 1 );
+        TabularData evaluations = ( TabularData ) server.getAttribute( name, "Evaluations" );
+        assertEquals( 1L, evaluations.get( new Object[]{ "Cosine" } ).get( "value" ) );
+        assertEquals( Allocations.ENABLED, server.getAttribute( name, "AllocationTracking" ) );
+        server.invoke( name, "reset", null, null );
+        assertFalse( Instrumentation.snapshot().getEvaluations().getOrDefault( "Cosine", 0L ) > 0 );
+    }
+}
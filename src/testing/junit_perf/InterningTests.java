@@ -0,0 +1,156 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.AbstractFunction;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Structural equality and sharing of equal subtrees
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class InterningTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    private static MathFunction build() {
+        return FunctionFactory.product(
+                FunctionFactory.sine( FunctionFactory.sum( X, FunctionFactory.constant( 2 ) ) ),
+                X,
+                FunctionFactory.cosine( X )
+        );
+    }
+
+    @Test
+    public void t1Equality() {
+        MathFunction a = build();
+        MathFunction b = build();
+        assertEquals( a, b );
+        assertEquals( a.hashCode(), b.hashCode() );
+        assertFalse( FunctionFactory.sine( X ).equals( FunctionFactory.cosine( X ) ) );
+        assertFalse( FunctionFactory.constant( 0.0 ).equals( FunctionFactory.constant( -0.0 ) ) );
+        assertEquals( FunctionFactory.constant( Double.NaN ), FunctionFactory.constant( Double.NaN ) );
+    }
+
+    @Test
+    public void t2Sharing() {
+        MathFunction a = build();
+        assertSame( a, build() );
+        assertSame( FunctionFactory.constant( 3 ), FunctionFactory.constant( 3 ) );
+        assertSame( a.derivative(), build().derivative() );
+        assertSame( FunctionFactory.sum( X, X ), FunctionFactory.sum( X, X ) );
+        assertNotSame( FunctionFactory.sum( X, X ), FunctionFactory.product( X, X ) );
+    }
+
+    /**
+     * n different trig factors
+     */
+    private static MathFunction[] trigFactors( int n ) {
+        MathFunction[] factors = new MathFunction[ n ];
+        for ( int i = 0; i < n; i++ ) {
+            factors[ i ] = i % 2 == 0
+                    ? FunctionFactory.sine( FunctionFactory.sum( X, FunctionFactory.constant( i ) ) )
+                    : FunctionFactory.cosine( FunctionFactory.product( X, FunctionFactory.constant( i + 1 ) ) );
+        }
+        return factors;
+    }
+
+    /**
+     * How many distinct nodes a function is made of, shared ones counted once
+     */
+    private static int distinctNodes( MathFunction f, Set< MathFunction > seen ) {
+        if ( !seen.add( f ) ) {
+            return 0;
+        }
+        int count = 1;
+        if ( f instanceof AbstractFunction ) {
+            AbstractFunction node = ( AbstractFunction ) f;
+            for ( int i = 0; i < node.numChildren(); i++ ) {
+                count += distinctNodes( node.get( i ), seen );
+            }
+        }
+        return count;
+    }
+
+    private static int distinctNodes( MathFunction f ) {
+        return distinctNodes( f, Collections.newSetFromMap( new IdentityHashMap<>() ) );
+    }
+
+    @Test
+    public void t3ProductDag() {
+        // doubling the factors doubles the derivative DAG, give or take a few nodes
+        int[] sizes = new int[ 3 ];
+        for ( int k = 0; k < sizes.length; k++ ) {
+            MathFunction[] factors = trigFactors( 10 << k );
+            MathFunction d = FunctionFactory.product( factors ).derivative();
+            sizes[ k ] = distinctNodes( d );
+            for ( double x = -2; x < 2; x += 0.37 ) {
+                // the product rule, one factor differentiated at a time
+                double expected = 0;
+                for ( int i = 0; i < factors.length; i++ ) {
+                    double term = factors[ i ].derivative().evaluate( x );
+                    for ( int j = 0; j < factors.length; j++ ) {
+                        term *= j == i ? 1 : factors[ j ].evaluate( x );
+                    }
+                    expected += term;
+                }
+                assertEquals( expected, d.evaluate( x ), 1e-12 * ( 1 + Math.abs( expected ) ) );
+            }
+        }
+        assertTrue( sizes[ 1 ] <= 2 * sizes[ 0 ] + 10 );
+        assertTrue( sizes[ 2 ] <= 2 * sizes[ 1 ] + 10 );
+        assertTrue( distinctNodes( FunctionFactory.product( trigFactors( 40 ) ).derivative().derivative() )
+                    < 20 * 40 );
+    }
+
+    @Test
+    public void t4Memoized() throws Exception {
+        MathFunction f = build();
+        for ( MathFunction g : new MathFunction[]{ f, X, FunctionFactory.constant( 2 ),
+                                                    FunctionFactory.sum( X, FunctionFactory.product( X, X ) ),
+                                                    FunctionFactory.sine( X ), FunctionFactory.cosine( X ) } ) {
+            assertSame( g.derivative(), g.derivative() );
+        }
+        assertSame( f.derivative().derivative(), f.derivative().derivative() );
+
+        // threads asking for the derivative of a new function all get the same object
+        MathFunction fresh = FunctionFactory.product( build(), FunctionFactory.sine(
+                FunctionFactory.sum( X, FunctionFactory.constant( 0.318309886 ) ) ) );
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool( threads );
+        try {
+            CountDownLatch start = new CountDownLatch( 1 );
+            List< Future< MathFunction > > results = new ArrayList<>();
+            for ( int i = 0; i < threads; i++ ) {
+                results.add( pool.submit( () -> {
+                    start.await();
+                    return fresh.derivative();
+                } ) );
+            }
+            start.countDown();
+            for ( Future< MathFunction > result : results ) {
+                assertSame( fresh.derivative(), result.get() );
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
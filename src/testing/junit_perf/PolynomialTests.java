@@ -0,0 +1,66 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.Polynomial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Products of x factors and sums of them built as one Polynomial
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class PolynomialTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    private static MathFunction cubic() {
+        // 2x^3 - 3x + 1.5
+        return FunctionFactory.sum(
+                FunctionFactory.product( X, X, FunctionFactory.constant( 2 ), X ),
+                FunctionFactory.product( X, FunctionFactory.constant( -3 ) ),
+                FunctionFactory.constant( 1.5 )
+        );
+    }
+
+    @Test
+    public void t1Recognition() {
+        MathFunction p = cubic();
+        assertTrue( p instanceof Polynomial );
+        assertEquals( 3, ( ( Polynomial ) p ).degree() );
+        assertEquals( "( ( x * x * x * 2.0 ) + ( x * -3.0 ) + 1.5 )", p.toString() );
+        assertSame( p, FunctionFactory.polynomial( 1.5, -3, 0, 2 ) );
+        assertSame( FunctionFactory.power( 2 ), FunctionFactory.product( X, X ) );
+        assertEquals( "( x * x )", FunctionFactory.power( 2 ).toString() );
+        assertFalse( FunctionFactory.sum( X, X ) instanceof Polynomial );
+        assertSame( X, FunctionFactory.polynomial( 0, 1 ) );
+        // only nodes a Polynomial is written out exactly like are replaced
+        assertEquals( "( x * sin( x ) * x * x * 2.0 )",
+                      FunctionFactory.product( X, FunctionFactory.sine( X ), X,
+                                               FunctionFactory.constant( 2 ), X ).toString() );
+        assertEquals( "( x + ( x * x ) )", FunctionFactory.sum( X, FunctionFactory.product( X, X ) ).toString() );
+        assertFalse( FunctionFactory.sum( X, FunctionFactory.product( X, X ) ) instanceof Polynomial );
+        assertEquals( "( x * ( ( x * x ) + 1.0 ) )",
+                      FunctionFactory.product( X, FunctionFactory.polynomial( 1, 0, 1 ) ).toString() );
+    }
+
+    @Test
+    public void t2Calculus() {
+        MathFunction p = cubic();
+        for ( double x = -3; x < 3; x += 0.25 ) {
+            assertEquals( 2 * x * x * x - 3 * x + 1.5, p.evaluate( x ), 1e-12 );
+            assertEquals( 6 * x * x - 3, p.evaluateWithDerivative( x ).getDerivative(), 1e-12 );
+        }
+        assertEquals( "( ( x * x * 6.0 ) + -3.0 )", p.derivative().toString() );
+        assertEquals( "( x * 12.0 )", p.derivative().derivative().toString() );
+        assertEquals( 7.5, p.integral( -1, 2, 1 ), 1e-14 );
+        assertEquals( 54.0, FunctionFactory.product( X, FunctionFactory.constant( 3 ), X )
+                                           .integral( -3, 3, 5 ), 1e-12 );
+    }
+}
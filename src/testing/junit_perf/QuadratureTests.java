@@ -0,0 +1,56 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.FunctionFactory;
+import ritmath.IntegralResult;
+import ritmath.MathFunction;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration beyond the fixed trapezoid rule
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class QuadratureTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    @Test
+    public void t1Adaptive() {
+        // x * sin( x * x ) integrates to -cos( x * x ) / 2
+        MathFunction f = FunctionFactory.product(
+                X, FunctionFactory.sine( FunctionFactory.product( X, X ) )
+        );
+        IntegralResult r = f.integral( 0, 10, 1e-12, 1e-12 );
+        assertEquals( ( 1 - Math.cos( 100 ) ) / 2, r.getValue(), 1e-12 );
+        assertTrue( r.getErrorEstimate() <= 1e-12 );
+        assertTrue( r.getEvaluations() < 5000 );
+
+        IntegralResult s = FunctionFactory.sine( X ).integral( Math.PI, 0, 1e-12, 0 );
+        assertEquals( -2.0, s.getValue(), 1e-12 );
+        assertEquals( 45, s.getEvaluations() );
+    }
+
+    @Test
+    public void t2ParallelTrapezoid() throws Exception {
+        // sin( x * x ) has no closed-form integral, so the trapezoids are summed
+        MathFunction f = FunctionFactory.sine( FunctionFactory.product( X, X ) );
+        int cuts = 1 << 21;
+        double parallel = f.integral( -3, 5, cuts );
+        assertEquals( f.integral( -3, 5, 1e-13, 1e-13 ).getValue(), parallel, 1e-8 );
+        // the result does not depend on how many threads sum the pieces
+        for ( int threads : new int[]{ 1, 3, 8 } ) {
+            ForkJoinPool pool = new ForkJoinPool( threads );
+            try {
+                assertEquals( parallel, pool.submit( () -> f.integral( -3, 5, cuts ) ).get().doubleValue() );
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.solve.RootFinder;
+import ritmath.solve.RootResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Finding every root of a function in an interval
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class RootFinderTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    @Test
+    public void t1Sine() {
+        RootResult result = new RootFinder().find( FunctionFactory.sine( X ), 10, -10 );
+        double[] roots = result.getRoots();
+        assertEquals( 7, roots.length );
+        for ( int k = -3; k <= 3; k++ ) {
+            assertEquals( k * Math.PI, roots[ k + 3 ], 1e-14 * Math.max( 1, Math.abs( k * Math.PI ) ) );
+        }
+        assertEquals( 7, result.getBrackets() );
+        assertEquals( 0, result.getUnconverged() );
+        assertEquals( RootFinder.DEFAULT_SCAN_POINTS, result.getEvaluations() );
+        // Newton's method from the middle of a small bracket needs only a few steps
+        assertTrue( result.getIterations() <= 5 * 7 );
+        assertTrue( result.getDerivativeEvaluations() <= result.getIterations() + 7 );
+    }
+
+    @Test
+    public void t2ManyRoots() {
+        MathFunction f = FunctionFactory.sum(
+                FunctionFactory.product(
+                        FunctionFactory.sine( FunctionFactory.product( X, FunctionFactory.constant( 7 ) ) ),
+                        FunctionFactory.cosine( FunctionFactory.product( X, X ) ) ),
+                FunctionFactory.constant( 0.3 )
+        );
+        RootResult result = new RootFinder().find( f, -20, 20 );
+        double[] roots = result.getRoots();
+        assertTrue( roots.length > 100 );
+        for ( int i = 0; i < roots.length; i++ ) {
+            assertEquals( 0, f.evaluate( roots[ i ] ), 1e-12 );
+            if ( i > 0 ) {
+                assertTrue( roots[ i ] > roots[ i - 1 ] );
+            }
+        }
+        // a finer scan also splits pairs of roots closer than the default grid spacing
+        double[] finer = new RootFinder( 4 * RootFinder.DEFAULT_SCAN_POINTS, RootFinder.DEFAULT_TOLERANCE,
+                RootFinder.DEFAULT_MAX_ITERATIONS ).find( f, -20, 20 ).getRoots();
+        assertTrue( finer.length > roots.length );
+        int j = 0;
+        for ( double root : roots ) {
+            while ( finer[ j ] < root - 1e-12 ) {
+                j++;
+            }
+            assertEquals( root, finer[ j ], 1e-12 );
+        }
+    }
+
+    @Test
+    public void t3EdgeCases() {
+        // x * x - 2, and x * x, whose double root is only found on a grid point
+        double[] roots = new RootFinder().find( FunctionFactory.polynomial( -2, 0, 1 ), -3, 3 ).getRoots();
+        assertEquals( 2, roots.length );
+        assertEquals( Math.sqrt( 2 ), roots[ 1 ], 1e-15 );
+        assertEquals( 1, new RootFinder( 5, 1e-12, 50 ).find( FunctionFactory.power( 2 ), -1, 1 ).getRoots().length );
+        assertEquals( 0, new RootFinder( 4, 1e-12, 50 ).find( FunctionFactory.power( 2 ), -1, 1 ).getRoots().length );
+        assertEquals( 0, new RootFinder().find( FunctionFactory.constant( 1 ), -1, 1 ).getRoots().length );
+        assertThrows( IllegalArgumentException.class, () -> new RootFinder( 1, 1e-12, 50 ) );
+    }
+
+    @Test
+    public void t4Unconverged() {
+        // two steps cannot reach 1e-14 from a bracket of width 2, so the
+        // root is the middle of what is left of it, and is reported as such
+        MathFunction f = FunctionFactory.polynomial( -2, 0, 1 );
+        RootResult result = new RootFinder( 3, 1e-14, 2 ).find( f, 0, 2 );
+        assertEquals( 1, result.getBrackets() );
+        assertEquals( 1, result.getUnconverged() );
+        double root = result.getRoots()[ 0 ];
+        // the bracket is [1, 2] after the scan and at most half that after a step
+        assertTrue( root > 1 && root < 2 );
+        assertEquals( Math.sqrt( 2 ), root, 0.5 );
+        assertTrue( result.toString().contains( "1 unconverged" ) );
+        assertEquals( 0, new RootFinder( 3, 1e-14, 100 ).find( f, 0, 2 ).getUnconverged() );
+    }
+}
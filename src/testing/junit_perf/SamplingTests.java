@@ -0,0 +1,91 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.UniformSampler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Evaluating at equally spaced points with UniformSampler
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class SamplingTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    private static double[] direct( MathFunction f, double a, double b, int n ) {
+        double[] xs = new double[ n ];
+        double step = n > 1 ? ( b - a ) / ( n - 1 ) : 0;
+        for ( int i = 0; i < n; i++ ) {
+            xs[ i ] = a + i * step;
+        }
+        if ( n > 1 ) {
+            xs[ n - 1 ] = b;
+        }
+        double[] out = new double[ n ];
+        f.evaluate( xs, out );
+        return out;
+    }
+
+    private static double maxError( MathFunction f, double a, double b, int n ) {
+        double[] expected = direct( f, a, b, n );
+        double[] actual = new double[ n ];
+        UniformSampler.sampleUniform( f, a, b, n, actual );
+        double error = 0;
+        for ( int i = 0; i < n; i++ ) {
+            error = Math.max( error, Math.abs( expected[ i ] - actual[ i ] ) );
+        }
+        return error;
+    }
+
+    @Test
+    public void t1AffineTrig() {
+        MathFunction f = FunctionFactory.sum(
+                FunctionFactory.product(
+                        FunctionFactory.sine( FunctionFactory.product( X, FunctionFactory.constant( 3 ) ) ),
+                        FunctionFactory.cosine( FunctionFactory.sum( X, FunctionFactory.constant( 0.5 ) ) ) ),
+                FunctionFactory.sine( X ),
+                FunctionFactory.constant( 2 )
+        );
+        assertEquals( 0, maxError( f, 0, 10, 100_000 ), 1e-13 );
+        assertEquals( 0, maxError( f, 10, -10, 3001 ), 1e-13 );
+        MathFunction fast = FunctionFactory.cosine( FunctionFactory.product( X, FunctionFactory.constant( 1000 ) ) );
+        assertEquals( 0, maxError( fast, 0, 10, 100_000 ), 1e-11 );
+    }
+
+    @Test
+    public void t2OtherNodesExact() {
+        MathFunction f = FunctionFactory.product(
+                FunctionFactory.sine( FunctionFactory.product( X, X ) ),
+                FunctionFactory.polynomial( 1, 2, 3 ),
+                FunctionFactory.cosine( FunctionFactory.sine( FunctionFactory.polynomial( 0, 1, 1 ) ) )
+        );
+        assertEquals( 0.0, maxError( f, -3, 4, 5000 ) );
+    }
+
+    @Test
+    public void t3EdgeCases() {
+        MathFunction f = FunctionFactory.sine( X );
+        double[] out = { 7, 7 };
+        UniformSampler.sampleUniform( f, 1, 2, 0, out );
+        assertEquals( 7.0, out[ 0 ] );
+        UniformSampler.sampleUniform( f, 1, 2, 1, out );
+        assertEquals( Math.sin( 1 ), out[ 0 ] );
+        assertEquals( 7.0, out[ 1 ] );
+        UniformSampler.sampleUniform( f, 1, 2, 2, out );
+        // the last point is b exactly, and computed directly
+        assertEquals( Math.sin( 2 ), out[ 1 ] );
+        double[] third = new double[ 4 ];
+        UniformSampler.sampleUniform( X, 0.1, 0.3, 4, third );
+        assertEquals( 0.3, third[ 3 ] );
+        assertThrows( IllegalArgumentException.class,
+                () -> UniformSampler.sampleUniform( f, 0, 1, 3, new double[ 2 ] ) );
+        assertThrows( IllegalArgumentException.class,
+                () -> UniformSampler.sampleUniform( f, 0, 1, -1, out ) );
+    }
+}
@@ -0,0 +1,123 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.Constant;
+import ritmath.Cosine;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.Sine;
+import ritmath.Sum;
+import ritmath.simplify.Rules;
+import ritmath.simplify.SimplifyResult;
+import ritmath.simplify.Simplifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rewriting functions into smaller equal ones
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class SimplifierTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    @Test
+    public void t1Rules() {
+        MathFunction s = FunctionFactory.sine( X );
+        MathFunction c = FunctionFactory.cosine( X );
+        MathFunction f = FunctionFactory.sum(
+                FunctionFactory.product( s, s ),
+                FunctionFactory.product( c, c ),
+                X,
+                FunctionFactory.sum( X, FunctionFactory.product( X, FunctionFactory.constant( 3 ) ) )
+        );
+        SimplifyResult r = new Simplifier().simplify( f );
+        assertEquals( "( ( x * 5.0 ) + 1.0 )", r.getFunction().toString() );
+        assertEquals( 5, r.getNodesAfter() );
+        assertTrue( r.isComplete() );
+
+        MathFunction d = FunctionFactory.product( X, X, FunctionFactory.constant( 3 ) ).derivative();
+        assertEquals( "( x * 6.0 )", new Simplifier().simplify( d ).getFunction().toString() );
+    }
+
+    @Test
+    public void t2Derivatives() {
+        MathFunction g = FunctionFactory.product(
+                FunctionFactory.sine( X ), X, FunctionFactory.cosine( X ),
+                FunctionFactory.sine( FunctionFactory.product( X, X ) )
+        );
+        for ( int k = 0; k < 3; k++ ) {
+            g = g.derivative();
+            SimplifyResult r = new Simplifier().simplify( g );
+            assertTrue( r.getNodesAfter() < r.getNodesBefore() );
+            assertEquals( Simplifier.countNodes( g ), r.getNodesBefore() );
+            for ( double x = -3; x < 3; x += 0.37 ) {
+                double expected = g.evaluate( x );
+                assertEquals( expected, r.getFunction().evaluate( x ), 1e-13 * ( 1 + Math.abs( expected ) ) );
+            }
+        }
+        SimplifyResult limited = new Simplifier( Rules.standard(), 5 ).simplify( g );
+        assertFalse( limited.isComplete() );
+        assertEquals( g.evaluate( 1.25 ), limited.getFunction().evaluate( 1.25 ), 1e-12 );
+    }
+
+    @Test
+    public void t3CanonicalOrder() {
+        // two different sines whose hash codes are equal: swapping the words
+        // of a double's bits keeps its hash code
+        MathFunction a = FunctionFactory.sine( FunctionFactory.sum( X, FunctionFactory.constant( 1.5 ) ) );
+        MathFunction b = FunctionFactory.sine( FunctionFactory.sum( X, FunctionFactory.constant(
+                Double.longBitsToDouble( 0x000000003FF80000L ) ) ) );
+        assertEquals( a.hashCode(), b.hashCode() );
+        assertFalse( a.equals( b ) );
+        MathFunction ab = new Simplifier().simplify( FunctionFactory.product( a, X, b ) ).getFunction();
+        MathFunction ba = new Simplifier().simplify( FunctionFactory.product( b, X, a ) ).getFunction();
+        assertSame( ab, ba );
+    }
+
+    @Test
+    public void t4Folding() {
+        MathFunction s = FunctionFactory.sine( FunctionFactory.constant( 2 ) );
+        assertTrue( s instanceof Constant );
+        assertEquals( Math.sin( 2 ), s.evaluate( 0 ) );
+        MathFunction c = FunctionFactory.cosine( FunctionFactory.sum( FunctionFactory.constant( 1 ), s ) );
+        assertEquals( Math.cos( 1 + Math.sin( 2 ) ), c.evaluate( 5 ) );
+        assertEquals( "0.0", c.derivative().toString() );
+
+        // built without the factory, constant sines and cosines stay nodes until folded
+        MathFunction built = new Cosine( new Sine( FunctionFactory.constant( 1 ) ) );
+        assertFalse( built instanceof Constant );
+        assertSame( FunctionFactory.constant( Math.cos( Math.sin( 1 ) ) ), FunctionFactory.fold( built ) );
+        MathFunction sum = new Sum( X, built );
+        assertEquals( "( x + " + Math.cos( Math.sin( 1 ) ) + " )", sum.toString() );
+        MathFunction plain = new Sine( X );
+        assertSame( plain, FunctionFactory.fold( plain ) );
+    }
+
+    @Test
+    public void t5FoldedDerivatives() {
+        // derivatives are built by the factory too, so there is nothing left to fold
+        MathFunction[] functions = {
+                FunctionFactory.product( X, FunctionFactory.constant( 0.5 ) ),
+                FunctionFactory.product( FunctionFactory.sine( X ), FunctionFactory.constant( 3 ), X,
+                                         FunctionFactory.cosine( FunctionFactory.sum( X, FunctionFactory.constant( 2 ) ) ) ),
+                FunctionFactory.sum( FunctionFactory.product( X, FunctionFactory.constant( -2 ) ),
+                                     FunctionFactory.cosine( FunctionFactory.product( X, X, X ) ) ),
+                FunctionFactory.sine( FunctionFactory.product( X, FunctionFactory.constant( 4 ),
+                                                               FunctionFactory.sine( X ) ) )
+        };
+        for ( MathFunction f : functions ) {
+            MathFunction d = f;
+            for ( int k = 1; k <= 3; k++ ) {
+                d = d.derivative();
+                assertSame( d, FunctionFactory.fold( d ), "derivative " + k + " of " + f );
+            }
+        }
+        assertTrue( functions[ 0 ].derivative() instanceof Constant );
+    }
+}
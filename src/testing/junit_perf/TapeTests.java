@@ -0,0 +1,97 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.approx.ChebyshevProxy;
+import ritmath.tape.Tape;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tapes must evaluate exactly like the trees they were recorded from
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class TapeTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    /**
+     * A DAG in which every level uses the level below it three times
+     */
+    private static MathFunction dag( int levels ) {
+        MathFunction f = FunctionFactory.sine( FunctionFactory.sum(
+                FunctionFactory.product( X, X, FunctionFactory.constant( 2 ) ),
+                FunctionFactory.product( X, FunctionFactory.constant( -1 ) ),
+                FunctionFactory.constant( 0.5 ) ) );
+        for ( int i = 0; i < levels; i++ ) {
+            f = FunctionFactory.sum(
+                    FunctionFactory.product( f, FunctionFactory.cosine( f ), FunctionFactory.constant( 0.75 ) ),
+                    FunctionFactory.sine( f ),
+                    X
+            );
+        }
+        return f;
+    }
+
+    private static double[] grid() {
+        double[] xs = new double[ 1000 ];
+        for ( int i = 0; i < xs.length; i++ ) {
+            xs[ i ] = -6 + i * 0.0121;
+        }
+        return xs;
+    }
+
+    @Test
+    public void t1Evaluate() {
+        MathFunction f = dag( 8 );
+        Tape tape = Tape.of( f );
+        // each shared node is recorded once, where the tree has 3^8 copies of the bottom
+        assertTrue( tape.length() < 300 );
+        double[] xs = grid();
+        double[] batch = new double[ xs.length ];
+        tape.evaluate( xs, batch );
+        double[] frame = tape.newFrame();
+        for ( int i = 0; i < xs.length; i++ ) {
+            double expected = f.evaluate( xs[ i ] );
+            assertEquals( expected, tape.evaluate( xs[ i ] ), "at " + xs[ i ] );
+            assertEquals( expected, tape.evaluate( xs[ i ], frame ), "at " + xs[ i ] );
+            assertEquals( expected, batch[ i ], "at " + xs[ i ] );
+        }
+    }
+
+    @Test
+    public void t2Threads() {
+        MathFunction shared = FunctionFactory.product( FunctionFactory.cosine( X ), X );
+        MathFunction f = FunctionFactory.sum( FunctionFactory.sine( shared ), shared, FunctionFactory.constant( 2 ) );
+        Tape tape = Tape.of( f );
+        double[] xs = grid();
+        // every thread evaluates in its own frame
+        double[] parallel = IntStream.range( 0, xs.length ).parallel()
+                                     .mapToDouble( i -> tape.evaluate( xs[ i ] ) ).toArray();
+        for ( int i = 0; i < xs.length; i++ ) {
+            assertEquals( f.evaluate( xs[ i ] ), parallel[ i ], "at " + xs[ i ] );
+        }
+        assertEquals( f.toString(), tape.toString() );
+    }
+
+    @Test
+    public void t3Calls() {
+        // a node the tape cannot interpret is called, even inside a shared subtree
+        MathFunction proxy = ChebyshevProxy.fit( FunctionFactory.cosine( X ), -7, 7, 1e-12 );
+        MathFunction shared = FunctionFactory.product( proxy, X );
+        MathFunction f = FunctionFactory.sum( FunctionFactory.sine( shared ), shared, FunctionFactory.constant( 2 ) );
+        Tape tape = Tape.of( f );
+        double[] xs = grid();
+        double[] parallel = IntStream.range( 0, xs.length ).parallel()
+                                     .mapToDouble( i -> tape.evaluate( xs[ i ] ) ).toArray();
+        for ( int i = 0; i < xs.length; i++ ) {
+            assertEquals( f.evaluate( xs[ i ] ), parallel[ i ], "at " + xs[ i ] );
+        }
+    }
+}
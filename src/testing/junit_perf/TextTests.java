@@ -0,0 +1,106 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.io.InfixParser;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writing functions out as text and reading them back
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class TextTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    private static MathFunction expr() {
+        return FunctionFactory.sum(
+                FunctionFactory.product( X, FunctionFactory.constant( 3 ),
+                                         FunctionFactory.cosine( X ) ),
+                FunctionFactory.sine( FunctionFactory.product( X, X ) ),
+                FunctionFactory.constant( 2 )
+        );
+    }
+
+    @Test
+    public void t1WriteTo() throws IOException {
+        MathFunction f = expr();
+        StringBuilder text = new StringBuilder();
+        f.writeTo( text );
+        assertEquals( f.toString(), text.toString() );
+        assertEquals( "( ( x * cos( x ) * 3.0 ) + sin( ( x * x ) ) + 2.0 )", text.toString() );
+
+        MathFunction d = f.derivative();
+        text.setLength( 0 );
+        d.writeTo( text );
+        assertEquals( d.toString(), text.toString() );
+    }
+
+    @Test
+    public void t2WriteToMaxLength() throws IOException {
+        MathFunction f = expr();
+        String full = f.toString();
+        StringBuilder text = new StringBuilder();
+        assertFalse( f.writeTo( text, 10 ) );
+        assertEquals( full.substring( 0, 10 ) + "...", text.toString() );
+
+        text.setLength( 0 );
+        assertTrue( f.writeTo( text, full.length() ) );
+        assertEquals( full, text.toString() );
+
+        text.setLength( 0 );
+        assertFalse( f.writeTo( text, full.length() - 1 ) );
+        assertEquals( full.substring( 0, full.length() - 1 ) + "...", text.toString() );
+    }
+
+    @Test
+    public void t3Parse() throws IOException {
+        MathFunction f = expr();
+        assertSame( f, InfixParser.parse( f.toString() ) );
+        // derivatives hold one-term sums, which print as just the term
+        MathFunction d = f.derivative().derivative();
+        MathFunction parsed = InfixParser.parse( new StringReader( d.toString() ) );
+        assertEquals( d.toString(), parsed.toString() );
+        assertEquals( d.evaluate( 0.7 ), parsed.evaluate( 0.7 ) );
+        MathFunction p = FunctionFactory.sum( FunctionFactory.polynomial( 1, -2, 0, 4 ),
+                                              FunctionFactory.cosine( X ) );
+        assertSame( p, InfixParser.parse( p.toString() ) );
+
+        assertEquals( "( x * cos( x ) * 10.0 )",
+                      InfixParser.parse( "(x*cos(x)*10.0)" ).toString() );
+        assertEquals( 1.2246467991473532E-16, InfixParser.parse( "1.2246467991473532E-16" ).evaluate( 0 ) );
+        assertEquals( Double.NEGATIVE_INFINITY, InfixParser.parse( "-Infinity" ).evaluate( 0 ) );
+        assertTrue( Double.isNaN( InfixParser.parse( "( x + NaN )" ).evaluate( 1 ) ) );
+        assertEquals( "0.0", InfixParser.parse( "(  )" ).toString() );
+
+        // nesting far deeper than the call stack would allow
+        int depth = 200000;
+        StringBuilder deep = new StringBuilder();
+        for ( int i = 0; i < depth; i++ ) {
+            deep.append( "sin( " );
+        }
+        deep.append( 'x' );
+        for ( int i = 0; i < depth; i++ ) {
+            deep.append( " )" );
+        }
+        MathFunction chain = InfixParser.parse( new StringReader( deep.toString() ) );
+        assertEquals( depth + 1, chain.info().getDepth() );
+
+        assertThrows( IllegalArgumentException.class, () -> InfixParser.parse( "( x + x * x )" ) );
+        assertThrows( IllegalArgumentException.class, () -> InfixParser.parse( "( x + )" ) );
+        assertThrows( IllegalArgumentException.class, () -> InfixParser.parse( "sin( x" ) );
+        assertThrows( IllegalArgumentException.class, () -> InfixParser.parse( "tan( x )" ) );
+        assertThrows( IllegalArgumentException.class, () -> InfixParser.parse( "x x" ) );
+    }
+}
@@ -0,0 +1,104 @@
+package testing.junit_perf;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import ritmath.AbstractFunction;
+import ritmath.FunctionFactory;
+import ritmath.MathFunction;
+import ritmath.NodeInfo;
+
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Walking the children of a function tree, and what is known about it
+ */
+@TestMethodOrder( MethodOrderer.MethodName.class )
+public class TreeAccessTests {
+
+    private static final MathFunction X = FunctionFactory.x();
+
+    private static AbstractFunction node() {
+        return ( AbstractFunction ) FunctionFactory.sum(
+                FunctionFactory.sine( X ),
+                FunctionFactory.product( X, X ),
+                FunctionFactory.cosine( X )
+        );
+    }
+
+    @Test
+    public void t1Iterator() {
+        AbstractFunction f = node();
+        int i = 0;
+        for ( MathFunction child : f ) {
+            assertSame( f.get( i ), child );
+            i++;
+        }
+        assertEquals( f.numChildren(), i );
+
+        Iterator< MathFunction > it = f.iterator();
+        it.next();
+        assertThrows( UnsupportedOperationException.class, it::remove );
+
+        List< MathFunction > streamed = StreamSupport.stream( f.spliterator(), true )
+                                                     .collect( Collectors.toList() );
+        assertEquals( f.numChildren(), streamed.size() );
+        for ( int c = 0; c < streamed.size(); c++ ) {
+            assertSame( f.get( c ), streamed.get( c ) );
+        }
+    }
+
+    @Test
+    public void t2GetAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads =
+                ( com.sun.management.ThreadMXBean ) ManagementFactory.getThreadMXBean();
+        AbstractFunction f = node();
+        int n = f.numChildren();
+        int calls = 1_000_000;
+        int checksum = 0;
+        for ( int i = 0; i < calls; i++ ) {
+            checksum += f.get( i % n ).hashCode();
+        }
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes( id );
+        for ( int i = 0; i < calls; i++ ) {
+            checksum += f.get( i % n ).hashCode();
+        }
+        long allocated = threads.getThreadAllocatedBytes( id ) - before;
+        assertFalse( checksum == 1 );
+        // whatever the measurement itself costs, it is far below one byte per call
+        assertEquals( 0, allocated / calls );
+    }
+
+    @Test
+    public void t3NodeInfo() {
+        AbstractFunction f = node();
+        NodeInfo info = f.info();
+        assertSame( info, f.info() );
+        assertFalse( info.isConstant() );
+        // sum, sin, x, x * x, cos, x
+        assertEquals( 6, info.getSize() );
+        assertEquals( 3, info.getDepth() );
+        assertEquals( f.hashCode(), info.getHash() );
+        assertEquals( 3 + NodeInfo.TRIG_COST + 1 + 2 * 2 + NodeInfo.TRIG_COST + 1, info.getCost() );
+        assertTrue( FunctionFactory.sine( FunctionFactory.constant( 2 ) ).info().isConstant() );
+
+        // a chain built bottom-up: each step must not re-walk what is below it
+        MathFunction chain = X;
+        for ( int i = 0; i < 20000; i++ ) {
+            chain = FunctionFactory.sine( FunctionFactory.sum( chain, FunctionFactory.constant( i ) ) );
+        }
+        assertEquals( 60000, chain.info().getSize() );
+        assertEquals( 40001, chain.info().getDepth() );
+    }
+}